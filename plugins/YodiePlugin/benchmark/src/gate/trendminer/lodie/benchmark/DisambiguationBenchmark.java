@@ -0,0 +1,95 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.benchmark;
+
+import gate.Document;
+import gate.Factory;
+import gate.trendminer.lodie.pr.MixDisambiguationPR;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for MixDisambiguationPR.execute, with and without threads.
+ *
+ * The document has a LookupList with 20 candidates for every other token.
+ * The Mention annotations created by an invocation are removed again
+ * afterwards, so every invocation sees the same document.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class DisambiguationBenchmark {
+
+  /** Number of tokens in the document */
+  @Param({"2000", "40000"})
+  public int nTokens;
+
+  /** The parallelThreshold parameter, 0 for no threads */
+  @Param({"0", "1000"})
+  public int parallelThreshold;
+
+  private Document doc;
+  private MixDisambiguationPR pr;
+
+  @Setup(Level.Trial)
+  public void setupTrial() throws Exception {
+    SyntheticData.initGate();
+    doc = SyntheticData.newDocument(nTokens, 2, 20, 1);
+    pr = new MixDisambiguationPR();
+    pr.init();
+    pr.setInputASName("");
+    pr.setOutputASName("Mentions");
+    pr.setParallelThreshold(parallelThreshold);
+    pr.setParallelThreads(0);
+    pr.setDocument(doc);
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDownInvocation() {
+    doc.removeAnnotationSet("Mentions");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownTrial() {
+    pr.cleanup();
+    Factory.deleteResource(doc);
+  }
+
+  @Benchmark
+  public void execute() throws Exception {
+    pr.execute();
+  }
+
+}
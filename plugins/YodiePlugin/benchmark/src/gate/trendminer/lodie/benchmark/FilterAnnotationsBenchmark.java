@@ -0,0 +1,111 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.benchmark;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.Document;
+import gate.Factory;
+import gate.Utils;
+import gate.miscutils.FilterAnnotationsPR;
+import gate.miscutils.FilterAnnotationsPR.FilterCriterion;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for FilterAnnotationsPR.execute.
+ *
+ * Filters the Lookup annotations of a synthetic document by Date annotations,
+ * in the way gazetteer-postproc removes lookups under dates and addresses.
+ * Filtering removes annotations, so every invocation gets a fresh document.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class FilterAnnotationsBenchmark {
+
+  /** Number of tokens in the document */
+  @Param({"1000", "10000"})
+  public int nTokens;
+
+  @Param({"OVERLAPPING", "NOT_CONTAINED"})
+  public FilterCriterion criterion;
+
+  private Document doc;
+  private FilterAnnotationsPR pr;
+
+  @Setup(Level.Trial)
+  public void setupTrial() throws Exception {
+    SyntheticData.initGate();
+    pr = new FilterAnnotationsPR();
+    pr.setName("FilterAnnotations:benchmark");
+    pr.setToFilterAS("");
+    pr.setToFilterTypes(Arrays.asList("Lookup"));
+    pr.setByAS("");
+    pr.setByAnnotationSpecs(Arrays.asList("Date"));
+    pr.setFilterCriterion(criterion);
+    pr.setOutputSet("");
+    pr.controllerExecutionStarted(null);
+  }
+
+  @Setup(Level.Invocation)
+  public void setupInvocation() throws Exception {
+    doc = SyntheticData.newDocument(nTokens, 5, 5, 1);
+    // a Date annotation spanning three tokens about every 50 tokens
+    AnnotationSet set = doc.getAnnotations();
+    Random rnd = new Random(SyntheticData.SEED);
+    List<Annotation> tokens = set.get("Token").inDocumentOrder();
+    for(int i=0; i+3<tokens.size(); i+=40+rnd.nextInt(20)) {
+      Utils.addAnn(set, Utils.start(tokens.get(i)), Utils.end(tokens.get(i+2)), 
+              "Date", Factory.newFeatureMap());
+    }
+    pr.setDocument(doc);
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDownInvocation() {
+    pr.setDocument(null);
+    Factory.deleteResource(doc);
+  }
+
+  @Benchmark
+  public void execute() {
+    pr.execute();
+  }
+
+}
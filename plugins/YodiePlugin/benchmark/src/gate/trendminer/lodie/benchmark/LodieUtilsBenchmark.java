@@ -0,0 +1,181 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.benchmark;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.Document;
+import gate.Factory;
+import gate.FeatureMap;
+import gate.Utils;
+import gate.trendminer.lodie.utils.LodieUtils;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the candidate handling methods in LodieUtils.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class LodieUtilsBenchmark {
+
+  /** Number of candidates per LookupList */
+  @Param({"10", "100", "500"})
+  public int nCands;
+
+  private List<FeatureMap> cands1;
+  private List<FeatureMap> cands2;
+  private Document doc;
+  private AnnotationSet set;
+  private Annotation listAnn;
+  private List<FeatureMap> listCands;
+
+  @Setup(Level.Trial)
+  public void setupTrial() throws Exception {
+    SyntheticData.initGate();
+    // the second list overlaps the first one in half of the candidates
+    cands1 = SyntheticData.newCandidateList(nCands, 1000, 1L);
+    cands2 = SyntheticData.newCandidateList(nCands, 1000+nCands/2, 1L);
+    doc = SyntheticData.newDocument(200, 10, nCands, 1);
+    set = doc.getAnnotations();
+    listAnn = set.get("LookupList").iterator().next();
+    listCands = LodieUtils.getCandidateList(set, listAnn);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownTrial() {
+    Factory.deleteResource(doc);
+  }
+
+  @Benchmark
+  public List<FeatureMap> intersectByInst() {
+    return LodieUtils.intersectCandidates(cands1, cands2, "inst", "label");
+  }
+
+  @Benchmark
+  public List<FeatureMap> intersectAllFeatures() {
+    return LodieUtils.intersectCandidates(cands1, cands2);
+  }
+
+  @Benchmark
+  public List<FeatureMap> unionByInst() {
+    return LodieUtils.unionCandidates(cands1, cands2, "inst", "label");
+  }
+
+  @Benchmark
+  public void rankOneFeature() {
+    LodieUtils.addRankFeature("scPageRank", listAnn, set, true);
+  }
+
+  @Benchmark
+  public void rankThreeFeatures() {
+    LodieUtils.addRankFeature("scPageRank", listAnn, set, true);
+    LodieUtils.addRankFeature("scStringSimilarity", listAnn, set, true);
+    LodieUtils.addRankFeature("scContextualSimilarity", listAnn, set, true);
+  }
+
+  @Benchmark
+  public List<FeatureMap> sortBest() {
+    return LodieUtils.sortCandidatesDescOn(listCands, "scPageRank", 1, true);
+  }
+
+  @Benchmark
+  public List<FeatureMap> sortTop5() {
+    return LodieUtils.sortCandidatesDescOn(listCands, "scPageRank", 5, false);
+  }
+
+  @Benchmark
+  public List<FeatureMap> getCandidateList() {
+    return LodieUtils.getCandidateList(set, listAnn);
+  }
+
+  /**
+   * Merging is destructive, so each invocation gets a fresh document with
+   * three coextensive LookupLists at every lookup position, the way
+   * mergeCoextensive.java processes them.
+   */
+  @State(Scope.Thread)
+  public static class MergeState {
+    @Param({"10", "100", "500"})
+    public int nCands;
+    Document doc;
+    AnnotationSet set;
+    List<List<Annotation>> groups;
+
+    @Setup(Level.Invocation)
+    public void setup() throws Exception {
+      SyntheticData.initGate();
+      doc = SyntheticData.newDocument(200, 20, nCands, 3);
+      set = doc.getAnnotations();
+      groups = new ArrayList<List<Annotation>>();
+      AnnotationSet lls = set.get("LookupList");
+      Set<Annotation> seen = new HashSet<Annotation>();
+      for(Annotation ll : lls.inDocumentOrder()) {
+        if(seen.add(ll)) {
+          List<Annotation> group = new ArrayList<Annotation>();
+          group.add(ll);
+          for(Annotation other : Utils.getCoextensiveAnnotations(lls, ll)) {
+            if(seen.add(other)) {
+              group.add(other);
+            }
+          }
+          groups.add(group);
+        }
+      }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      Factory.deleteResource(doc);
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void mergeCoextensive(MergeState state) {
+    for(List<Annotation> group : state.groups) {
+      Annotation target = group.get(0);
+      for(int i=1; i<group.size(); i++) {
+        LodieUtils.mergeListAnns(state.set, target, group.get(i), true, "inst", "label");
+      }
+    }
+  }
+
+}
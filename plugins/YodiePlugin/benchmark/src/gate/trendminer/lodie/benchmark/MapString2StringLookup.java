@@ -0,0 +1,46 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.benchmark;
+
+import gate.miscutils.String2StringLookup;
+import java.util.Map;
+
+/**
+ * An in-memory stand-in for the JDBC backed canonicalization tables.
+ */
+public class MapString2StringLookup implements String2StringLookup {
+
+  private final Map<String,String> map;
+
+  public MapString2StringLookup(Map<String,String> map) {
+    this.map = map;
+  }
+
+  @Override
+  public String get(String key) {
+    return map.get(key);
+  }
+
+  @Override
+  public boolean contains(String key) {
+    return map.containsKey(key);
+  }
+
+}
@@ -0,0 +1,112 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.benchmark;
+
+import gate.trendminer.lodie.utils.StringSimilarity;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the scStringSimilarity computation.
+ *
+ * The pairs of label and matched string are made from the benchmark words
+ * like the candidates of a document: most labels differ from the string
+ * only in case or in a few characters, and each pair occurs several times.
+ * The time reported is per pair.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class StringSimilarityBenchmark {
+
+  private static final int N = 2000;
+  private static final int DISTINCT = 200;
+
+  private String[] labels;
+  private String[] strings;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random rnd = new Random(SyntheticData.SEED);
+    String[] distinctLabels = new String[DISTINCT];
+    String[] distinctStrings = new String[DISTINCT];
+    for(int i=0; i<DISTINCT; i++) {
+      String string = SyntheticData.WORDS[rnd.nextInt(SyntheticData.WORDS.length)] + " " +
+              SyntheticData.WORDS[rnd.nextInt(SyntheticData.WORDS.length)];
+      distinctStrings[i] = string;
+      switch(rnd.nextInt(3)) {
+        case 0: distinctLabels[i] = string; break;
+        case 1: distinctLabels[i] = Character.toUpperCase(string.charAt(0)) + string.substring(1); break;
+        default: distinctLabels[i] = string + ", " + SyntheticData.WORDS[rnd.nextInt(SyntheticData.WORDS.length)]; break;
+      }
+    }
+    labels = new String[N];
+    strings = new String[N];
+    for(int i=0; i<N; i++) {
+      int k = rnd.nextInt(DISTINCT);
+      labels[i] = distinctLabels[k];
+      strings[i] = distinctStrings[k];
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public void commonsLang(Blackhole bh) {
+    for(int i=0; i<N; i++) {
+      double lev = StringUtils.getLevenshteinDistance(labels[i], strings[i]);
+      bh.consume(1.0 - (lev/(strings[i].length() + labels[i].length())));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public void levenshtein(Blackhole bh) {
+    for(int i=0; i<N; i++) {
+      double lev = StringSimilarity.levenshtein(labels[i], strings[i]);
+      bh.consume(1.0 - (lev/(strings[i].length() + labels[i].length())));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public void similarity(Blackhole bh) {
+    for(int i=0; i<N; i++) {
+      bh.consume(StringSimilarity.similarity(labels[i], strings[i]));
+    }
+  }
+
+}
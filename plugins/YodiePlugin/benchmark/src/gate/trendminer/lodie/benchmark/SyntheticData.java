@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.benchmark;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.Document;
+import gate.Factory;
+import gate.FeatureMap;
+import gate.Gate;
+import gate.Utils;
+import gate.trendminer.lodie.utils.LodieUtils;
+import gate.util.GateException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic documents, candidate lists and URIs for the benchmarks.
+ *
+ * Everything is generated from a fixed seed so that repeated runs measure
+ * exactly the same data. The documents look roughly like clinical text as
+ * processed by the pipeline: Token and Sentence annotations in the default
+ * set and, for a fraction of the tokens, a LookupList with a number of
+ * Lookup candidates that have the features the scoring and disambiguation
+ * steps use.
+ */
+public class SyntheticData {
+
+  public static final long SEED = 42L;
+
+  static final String[] WORDS = {
+    "patient", "pain", "history", "blood", "pressure", "chest", "acute", "chronic",
+    "renal", "failure", "heart", "disease", "diabetes", "mellitus", "type", "infection",
+    "the", "of", "and", "with", "was", "no", "on", "for", "in", "to", "a", "is",
+    "cardiac", "arrest", "lung", "cancer", "fever", "cough", "admitted", "discharged",
+    "hypertension", "medication", "dose", "daily", "left", "right", "lower", "upper"
+  };
+
+  static final String[] STYS = {
+    "Disease or Syndrome", "Sign or Symptom", "Finding", "Body Part, Organ, or Organ Component",
+    "Pharmacologic Substance", "Diagnostic Procedure", "Laboratory or Test Result", "Temporal Concept"
+  };
+
+  static final String[] VOCABS = {
+    "MSH", "SNOMEDCT_US", "MTH", "HPO", "ICD10CM", "NCI", "MEDLINEPLUS", "LNC"
+  };
+
+  /**
+   * Initialise GATE once per JVM, the benchmark forks each call this.
+   */
+  public static synchronized void initGate() throws GateException {
+    if(!Gate.isInitialised()) {
+      Gate.runInSandbox(true);
+      Gate.init();
+    }
+  }
+
+  /**
+   * Create a document with nTokens tokens, sentences of 20 tokens and a
+   * LookupList with nCands candidates for every lookupEvery-th token.
+   * If coextensive is larger than 1, that many coextensive LookupLists
+   * are created at each lookup position, sharing about half of their candidates,
+   * as produced by the lookup for labels with several spellings.
+   */
+  public static Document newDocument(int nTokens, int lookupEvery, int nCands, int coextensive)
+          throws GateException {
+    Random rnd = new Random(SEED);
+    StringBuilder sb = new StringBuilder();
+    long[] starts = new long[nTokens];
+    long[] ends = new long[nTokens];
+    for(int i=0; i<nTokens; i++) {
+      if(i > 0) { sb.append(' '); }
+      starts[i] = sb.length();
+      sb.append(WORDS[rnd.nextInt(WORDS.length)]);
+      ends[i] = sb.length();
+    }
+    Document doc = Factory.newDocument(sb.toString());
+    AnnotationSet set = doc.getAnnotations();
+    for(int i=0; i<nTokens; i++) {
+      FeatureMap fm = Factory.newFeatureMap();
+      fm.put("string", sb.substring((int)starts[i], (int)ends[i]));
+      fm.put("category", rnd.nextInt(5) == 0 ? "NNP" : "NN");
+      Utils.addAnn(set, starts[i], ends[i], "Token", fm);
+    }
+    for(int i=0; i<nTokens; i+=20) {
+      int last = Math.min(nTokens, i+20) - 1;
+      Utils.addAnn(set, starts[i], ends[last], "Sentence", Factory.newFeatureMap());
+    }
+    for(int i=0; i<nTokens; i+=lookupEvery) {
+      // lookups span one or two tokens
+      int last = (i+1 < nTokens && rnd.nextBoolean()) ? i+1 : i;
+      int cuiBase = rnd.nextInt(100000);
+      for(int c=0; c<coextensive; c++) {
+        addLookupList(set, starts[i], ends[last], nCands, cuiBase + c*(nCands/2), rnd);
+      }
+    }
+    return doc;
+  }
+
+  /**
+   * Add a LookupList and its Lookup candidates to the set, return the LookupList annotation.
+   */
+  public static Annotation addLookupList(AnnotationSet set, long start, long end,
+          int nCands, int cuiBase, Random rnd) {
+    List<Integer> ids = new ArrayList<Integer>(nCands);
+    FeatureMap lfm = Factory.newFeatureMap();
+    lfm.put(LodieUtils.IDS, ids);
+    String string = Utils.cleanStringFor(set.getDocument(), start, end);
+    lfm.put("string", string);
+    int llId = Utils.addAnn(set, start, end, "LookupList", lfm);
+    for(int c=0; c<nCands; c++) {
+      ids.add(Utils.addAnn(set, start, end, "Lookup", newCandidate(llId, string, cuiBase+c, rnd)));
+    }
+    return set.get(llId);
+  }
+
+  /**
+   * Create the feature map of a candidate similar to what the lookup creates.
+   */
+  public static FeatureMap newCandidate(int llId, String string, int cui, Random rnd) {
+    FeatureMap fm = Factory.newFeatureMap();
+    fm.put(LodieUtils.LLID, llId);
+    fm.put("inst", String.format("C%07d", cui));
+    fm.put("label", string);
+    fm.put("string", string);
+    fm.put("string_orig", string);
+    fm.put("PREF", string + " (" + cui + ")");
+    fm.put("STY", STYS[rnd.nextInt(STYS.length)]);
+    fm.put("TUI", "T0" + (10 + rnd.nextInt(90)));
+    fm.put("CUIVOCABS", VOCABS[rnd.nextInt(VOCABS.length)] + "," + VOCABS[rnd.nextInt(VOCABS.length)]);
+    // many ties, as in real data, plus some missing values
+    fm.put("scPageRank", rnd.nextInt(10) == 0 ? null : Math.round(rnd.nextDouble()*50)/10.0);
+    fm.put("scMeshFreq", rnd.nextInt(1000));
+    fm.put("scStringSimilarity", rnd.nextInt(20)/20.0);
+    fm.put("scContextualSimilarity", rnd.nextDouble());
+    return fm;
+  }
+
+  /**
+   * Create a list of n candidate feature maps of which roughly the given fraction
+   * has an inst that also appears in a second list created with a different offset.
+   */
+  public static List<FeatureMap> newCandidateList(int n, int cuiBase, long seed) {
+    Random rnd = new Random(seed);
+    List<FeatureMap> ret = new ArrayList<FeatureMap>(n);
+    for(int i=0; i<n; i++) {
+      FeatureMap fm = newCandidate(0, "label", cuiBase+i, rnd);
+      fm.remove(LodieUtils.LLID);
+      ret.add(fm);
+    }
+    return ret;
+  }
+
+  /**
+   * Create n URIs in the mix of forms that gets canonicalized: full DBpedia URIs,
+   * shortened URIs, plain resource names with spaces, percent-encoded and
+   * unicode-escaped names.
+   */
+  public static String[] newUris(int n) {
+    Random rnd = new Random(SEED);
+    String[] ret = new String[n];
+    for(int i=0; i<n; i++) {
+      String name = Character.toUpperCase(WORDS[rnd.nextInt(WORDS.length)].charAt(0)) +
+              WORDS[rnd.nextInt(WORDS.length)].substring(1) + "_" + WORDS[rnd.nextInt(WORDS.length)];
+      switch(i % 6) {
+        case 0: ret[i] = "http://dbpedia.org/resource/" + name; break;
+        case 1: ret[i] = "dbpedia:" + name; break;
+        case 2: ret[i] = name.replace('_', ' ') + " (disambiguation)"; break;
+        case 3: ret[i] = "http://de.dbpedia.org/resource/" + name + "_%C3%BC"; break;
+        case 4: ret[i] = "dbpedia:" + name + "\\u00E9t\\u00E9"; break;
+        default: ret[i] = "http://dbpedia.org/resource/Category:" + name; break;
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Create in-memory canonicalization tables for the given URIs: about a third
+   * of the shortened URIs get a redirect, some get an interlanguage link and
+   * a few are disambiguation pages.
+   */
+  public static Map<String,Map<String,String>> newCanonicalizationTables(String[] uris) {
+    Random rnd = new Random(SEED);
+    Map<String,String> redirects = new HashMap<String,String>();
+    Map<String,String> interlanguage = new HashMap<String,String>();
+    Map<String,String> iri2uri = new HashMap<String,String>();
+    Map<String,String> disambiguations = new HashMap<String,String>();
+    for(String uri : uris) {
+      String shortUri = LodieUtils.recodeUri(LodieUtils.shortenUri(LodieUtils.unescapeUnicode(uri)));
+      int r = rnd.nextInt(10);
+      if(r < 3) {
+        redirects.put(shortUri, shortUri + "_Redirected");
+      } else if(r < 5 && shortUri.startsWith("dbpedia-de:")) {
+        interlanguage.put(shortUri, "dbpedia:" + shortUri.substring("dbpedia-de:".length()));
+      } else if(r == 5) {
+        disambiguations.put(shortUri, "");
+      } else if(r == 6) {
+        iri2uri.put(LodieUtils.shortenUri(LodieUtils.unescapeUnicode(uri)), shortUri);
+      }
+    }
+    Map<String,Map<String,String>> ret = new HashMap<String,Map<String,String>>();
+    ret.put("redirects", redirects);
+    ret.put("interlanguage", interlanguage);
+    ret.put("iri2uri", iri2uri);
+    ret.put("disambiguations", disambiguations);
+    return ret;
+  }
+
+}
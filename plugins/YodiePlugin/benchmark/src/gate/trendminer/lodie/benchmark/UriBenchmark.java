@@ -0,0 +1,115 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.benchmark;
+
+import gate.trendminer.lodie.utils.LodieUtils;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the URI helper methods in LodieUtils.
+ *
+ * Each benchmark processes a fixed array of URIs in all the forms the
+ * canonicalization gets to see, the time reported is per URI.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class UriBenchmark {
+
+  private static final int N = 1200;
+
+  private String[] uris;
+  private String[] fullUris;
+  private String[] shortUris;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    uris = SyntheticData.newUris(N);
+    fullUris = new String[N];
+    shortUris = new String[N];
+    for(int i=0; i<N; i++) {
+      shortUris[i] = LodieUtils.recodeUri(LodieUtils.shortenUri(LodieUtils.unescapeUnicode(uris[i])));
+      fullUris[i] = LodieUtils.expandUri(shortUris[i]);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public void recodeUri(Blackhole bh) {
+    for(String uri : uris) {
+      bh.consume(LodieUtils.recodeUri(uri));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public void recodeCanonicalUri(Blackhole bh) {
+    for(String uri : shortUris) {
+      bh.consume(LodieUtils.recodeUri(uri));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public void shortenUri(Blackhole bh) {
+    for(String uri : fullUris) {
+      bh.consume(LodieUtils.shortenUri(uri));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public String[] shortenUris() {
+    return LodieUtils.shortenUris(fullUris);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public void expandUri(Blackhole bh) {
+    for(String uri : shortUris) {
+      bh.consume(LodieUtils.expandUri(uri));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public void encodeCharsIn(Blackhole bh) {
+    for(String uri : fullUris) {
+      bh.consume(LodieUtils.encodeCharsIn(LodieUtils.DBP38Encoded+":", uri));
+    }
+  }
+
+}
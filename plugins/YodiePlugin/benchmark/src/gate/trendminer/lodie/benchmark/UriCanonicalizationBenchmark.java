@@ -0,0 +1,125 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.benchmark;
+
+import gate.miscutils.CanonicalizationCache;
+import gate.miscutils.MappedString2StringTable;
+import gate.miscutils.MappedTableCompiler;
+import gate.miscutils.UriCanonicalization;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for UriCanonicalization.canonicalize with in-memory tables.
+ *
+ * The tables are HashMaps, so this measures the cost of the canonicalization
+ * logic itself, without any database access. The time reported is per URI.
+ * The cached variant uses a cache large enough for all the URIs, so after
+ * the first invocation it measures the cost of a cache hit. The mapped variant
+ * uses the same tables compiled to memory-mapped files.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class UriCanonicalizationBenchmark {
+
+  private static final int N = 1200;
+
+  private String[] uris;
+  private UriCanonicalization canonicalization;
+  private UriCanonicalization cachedCanonicalization;
+  private UriCanonicalization mappedCanonicalization;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    uris = SyntheticData.newUris(N);
+    Map<String,Map<String,String>> tables = SyntheticData.newCanonicalizationTables(uris);
+    canonicalization = new UriCanonicalization(
+            new MapString2StringLookup(tables.get("interlanguage")),
+            new MapString2StringLookup(tables.get("redirects")),
+            new MapString2StringLookup(tables.get("iri2uri")),
+            new MapString2StringLookup(tables.get("disambiguations")));
+    cachedCanonicalization = new UriCanonicalization(
+            new MapString2StringLookup(tables.get("interlanguage")),
+            new MapString2StringLookup(tables.get("redirects")),
+            new MapString2StringLookup(tables.get("iri2uri")),
+            new MapString2StringLookup(tables.get("disambiguations")));
+    cachedCanonicalization.setCache(new CanonicalizationCache(2*N, CanonicalizationCache.Eviction.LRU));
+    mappedCanonicalization = new UriCanonicalization(
+            mappedTable(tables.get("interlanguage")),
+            mappedTable(tables.get("redirects")),
+            mappedTable(tables.get("iri2uri")),
+            mappedTable(tables.get("disambiguations")));
+  }
+
+  private static MappedString2StringTable mappedTable(Map<String,String> table) throws IOException {
+    MappedTableCompiler compiler = new MappedTableCompiler();
+    for(Map.Entry<String,String> e : table.entrySet()) {
+      compiler.add(e.getKey(), e.getValue());
+    }
+    File file = File.createTempFile("canonicalization", ".bin");
+    file.deleteOnExit();
+    compiler.write(file);
+    return new MappedString2StringTable(file);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public void canonicalize(Blackhole bh) {
+    for(String uri : uris) {
+      bh.consume(canonicalization.canonicalize(uri));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public void canonicalizeCached(Blackhole bh) {
+    for(String uri : uris) {
+      bh.consume(cachedCanonicalization.canonicalize(uri));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N)
+  public void canonicalizeMapped(Blackhole bh) {
+    for(String uri : uris) {
+      bh.consume(mappedCanonicalization.canonicalize(uri));
+    }
+  }
+
+}
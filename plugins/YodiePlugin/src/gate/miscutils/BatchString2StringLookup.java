@@ -0,0 +1,44 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A String2StringLookup which can look up many keys at once.
+ * 
+ * UriCanonicalization.canonicalizeAll uses this, if a table implements it,
+ * to resolve each step for all URIs of a batch with a single call.
+ */
+public interface BatchString2StringLookup extends String2StringLookup {
+  
+  /**
+   * Look up all the keys. 
+   * 
+   * The returned map contains an entry for each of the keys which is in
+   * the table and no entry for the keys which are not in the table.
+   * 
+   * @param keys
+   * @return 
+   */
+  public Map<String,String> getAll(Collection<String> keys);
+  
+}
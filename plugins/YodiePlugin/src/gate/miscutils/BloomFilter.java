@@ -0,0 +1,358 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import gate.util.GateRuntimeException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter for strings.
+ * 
+ * This is used to find out quickly that a key is definitely not in a table,
+ * see BloomFilteredLookup. The filter can be built from a table in the database
+ * or by adding the keys directly, and can be saved to a file next to the
+ * database so it does not need to get rebuilt each time.
+ * <p>
+ * A filter built from a table remembers where it came from: the table, the
+ * key column, the number of rows and, if the database file is given, its 
+ * modification time. This is saved with the filter, and loadOrBuild 
+ * rebuilds the filter if any of these differ from the current database, 
+ * since a filter for an older version of the table would reject keys which
+ * are in the table now. Without the database file, a change of the table
+ * which keeps the number of rows is not noticed, so the filter file must 
+ * then be deleted whenever the database changes.
+ * <p>
+ * Adding keys and checking keys is thread-safe.
+ */
+public class BloomFilter {
+  
+  private static final int MAGIC = 0x59424c46;  // "YBLF"
+  private static final int VERSION = 2;
+  
+  private final AtomicLongArray bits;
+  private final long nbits;
+  private final int nhashes;
+  // the table the filter was built from, null if it was not built from one
+  private String source;
+  
+  /**
+   * Create an empty filter sized for the expected number of keys and the 
+   * desired false positive rate.
+   * @param expectedKeys
+   * @param falsePositiveRate 
+   */
+  public BloomFilter(long expectedKeys, double falsePositiveRate) {
+    if(falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1: "+falsePositiveRate);
+    }
+    long n = Math.max(1, expectedKeys);
+    long m = (long)Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    m = Math.max(64, m);
+    if(m > 64L*Integer.MAX_VALUE) {
+      throw new GateRuntimeException("Bloom filter too large for "+expectedKeys+" keys");
+    }
+    nhashes = Math.max(1, (int)Math.round((double)m / n * Math.log(2)));
+    bits = new AtomicLongArray((int)((m+63)/64));
+    nbits = 64L * bits.length();
+  }
+  
+  private BloomFilter(long[] words, int nhashes, String source) {
+    this.bits = new AtomicLongArray(words);
+    this.nbits = 64L * words.length;
+    this.nhashes = nhashes;
+    this.source = source;
+  }
+  
+  /**
+   * Build a filter for all the keys in the key column of the table.
+   * @param jdbcUrl
+   * @param table
+   * @param keyColumn
+   * @param falsePositiveRate
+   * @return 
+   */
+  public static BloomFilter buildFromJdbc(String jdbcUrl, String table, String keyColumn, double falsePositiveRate) {
+    return buildFromJdbc(jdbcUrl, null, table, keyColumn, falsePositiveRate);
+  }
+  
+  /**
+   * Build a filter for all the keys in the key column of the table, recording
+   * the modification time of the database file if it is not null.
+   * @param jdbcUrl
+   * @param dbFile
+   * @param table
+   * @param keyColumn
+   * @param falsePositiveRate
+   * @return 
+   */
+  public static BloomFilter buildFromJdbc(String jdbcUrl, File dbFile, String table, String keyColumn, double falsePositiveRate) {
+    // taken before reading, so a change while reading makes the filter outdated
+    long modified = (dbFile == null) ? -1 : dbFile.lastModified();
+    try {
+      Connection conn = DriverManager.getConnection(jdbcUrl);
+      try {
+        Statement st = conn.createStatement();
+        long n = countRows(st, table);
+        BloomFilter filter = new BloomFilter(n, falsePositiveRate);
+        filter.source = sourceOf(table, keyColumn, n, modified);
+        ResultSet rs = st.executeQuery("SELECT "+keyColumn+" FROM "+table);
+        while(rs.next()) {
+          String key = rs.getString(1);
+          if(key != null) {
+            filter.add(key);
+          }
+        }
+        rs.close();
+        st.close();
+        return filter;
+      } finally {
+        conn.close();
+      }
+    } catch (SQLException ex) {
+      throw new GateRuntimeException("Could not read the keys of table "+table+" from "+jdbcUrl, ex);
+    }
+  }
+  
+  /**
+   * Load the filter from the file if it exists and was built from the same
+   * table, key column and number of rows, otherwise build it from the table 
+   * and save it to the file. 
+   * 
+   * Since a change of the table which keeps the number of rows is not 
+   * noticed here, the file must be deleted when the database changes, or 
+   * the variant with the database file must be used.
+   * @param file
+   * @param jdbcUrl
+   * @param table
+   * @param keyColumn
+   * @param falsePositiveRate
+   * @return 
+   */
+  public static BloomFilter loadOrBuild(File file, String jdbcUrl, String table, String keyColumn, double falsePositiveRate) {
+    return loadOrBuild(file, jdbcUrl, null, table, keyColumn, falsePositiveRate);
+  }
+  
+  /**
+   * Load the filter from the file if it exists and was built from the same
+   * table, key column and number of rows, and from the database file with
+   * the same modification time, otherwise build it from the table and save
+   * it to the file.
+   * @param file
+   * @param jdbcUrl
+   * @param dbFile the file of the database, or null if not known
+   * @param table
+   * @param keyColumn
+   * @param falsePositiveRate
+   * @return 
+   */
+  public static BloomFilter loadOrBuild(File file, String jdbcUrl, File dbFile, String table, String keyColumn, double falsePositiveRate) {
+    if(file.exists()) {
+      BloomFilter filter = load(file);
+      long modified = (dbFile == null) ? -1 : dbFile.lastModified();
+      if(filter.source != null && 
+         filter.source.equals(sourceOf(table, keyColumn, countRows(jdbcUrl, table), modified))) {
+        return filter;
+      }
+    }
+    BloomFilter filter = buildFromJdbc(jdbcUrl, dbFile, table, keyColumn, falsePositiveRate);
+    filter.save(file);
+    return filter;
+  }
+  
+  private static String sourceOf(String table, String keyColumn, long rows, long modified) {
+    return table+"\t"+keyColumn+"\t"+rows+"\t"+modified;
+  }
+  
+  private static long countRows(Statement st, String table) throws SQLException {
+    ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM "+table);
+    try {
+      rs.next();
+      return rs.getLong(1);
+    } finally {
+      rs.close();
+    }
+  }
+  
+  private static long countRows(String jdbcUrl, String table) {
+    try {
+      Connection conn = DriverManager.getConnection(jdbcUrl);
+      try {
+        Statement st = conn.createStatement();
+        long n = countRows(st, table);
+        st.close();
+        return n;
+      } finally {
+        conn.close();
+      }
+    } catch (SQLException ex) {
+      throw new GateRuntimeException("Could not count the rows of table "+table+" in "+jdbcUrl, ex);
+    }
+  }
+  
+  public void add(String key) {
+    long h1 = hash(key, 0x5851F42D4C957F2DL);
+    long h2 = hash(key, 0x14057B7EF767814FL) | 1;
+    for(int i=0; i<nhashes; i++) {
+      long bit = ((h1 + i*h2) & Long.MAX_VALUE) % nbits;
+      int word = (int)(bit >>> 6);
+      long mask = 1L << (bit & 63);
+      long old;
+      do {
+        old = bits.get(word);
+      } while((old & mask) == 0 && !bits.compareAndSet(word, old, old | mask));
+    }
+  }
+  
+  /**
+   * Return false if the key has definitely never been added, true if it 
+   * probably has been added.
+   * @param key
+   * @return 
+   */
+  public boolean mightContain(String key) {
+    long h1 = hash(key, 0x5851F42D4C957F2DL);
+    long h2 = hash(key, 0x14057B7EF767814FL) | 1;
+    for(int i=0; i<nhashes; i++) {
+      long bit = ((h1 + i*h2) & Long.MAX_VALUE) % nbits;
+      if((bits.get((int)(bit >>> 6)) & (1L << (bit & 63))) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * The table, key column, number of rows and database modification time
+   * the filter was built from, or null if the keys were added directly.
+   * @return 
+   */
+  public String getSource() {
+    return source;
+  }
+  
+  public long getNumberOfBits() {
+    return nbits;
+  }
+  
+  public int getNumberOfHashes() {
+    return nhashes;
+  }
+  
+  /**
+   * The false positive rate expected from the fraction of bits set.
+   * @return 
+   */
+  public double getExpectedFalsePositiveRate() {
+    long set = 0;
+    for(int i=0; i<bits.length(); i++) {
+      set += Long.bitCount(bits.get(i));
+    }
+    return Math.pow((double)set / nbits, nhashes);
+  }
+  
+  public void save(File file) {
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1<<16));
+      try {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeBoolean(source != null);
+        if(source != null) {
+          out.writeUTF(source);
+        }
+        out.writeInt(nhashes);
+        out.writeInt(bits.length());
+        for(int i=0; i<bits.length(); i++) {
+          out.writeLong(bits.get(i));
+        }
+      } finally {
+        out.close();
+      }
+    } catch (IOException ex) {
+      throw new GateRuntimeException("Could not save Bloom filter to "+file, ex);
+    }
+  }
+  
+  public static BloomFilter load(File file) {
+    try {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1<<16));
+      try {
+        if(in.readInt() != MAGIC) {
+          throw new GateRuntimeException("Not a Bloom filter file: "+file);
+        }
+        int version = in.readInt();
+        if(version < 1 || version > VERSION) {
+          throw new GateRuntimeException("Unsupported Bloom filter file version "+version+": "+file);
+        }
+        // version 1 files do not know their source, so they always get rebuilt
+        String source = null;
+        if(version >= 2 && in.readBoolean()) {
+          source = in.readUTF();
+        }
+        int nhashes = in.readInt();
+        long[] words = new long[in.readInt()];
+        for(int i=0; i<words.length; i++) {
+          words[i] = in.readLong();
+        }
+        return new BloomFilter(words, nhashes, source);
+      } finally {
+        in.close();
+      }
+    } catch (IOException ex) {
+      throw new GateRuntimeException("Could not load Bloom filter from "+file, ex);
+    }
+  }
+  
+  private static long hash(String s, long seed) {
+    long h = seed;
+    int len = s.length();
+    for(int i=0; i<len; i++) {
+      h ^= s.charAt(i);
+      h *= 0x9E3779B97F4A7C15L;
+      h ^= h >>> 29;
+    }
+    h ^= len;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+  
+  @Override
+  public String toString() {
+    return "BloomFilter(bits="+nbits+",hashes="+nhashes+")";
+  }
+  
+}
@@ -0,0 +1,168 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A String2StringLookup which uses a Bloom filter to avoid looking up keys
+ * which are definitely not in the table.
+ * 
+ * Most URIs are not in the redirects, interlanguage or disambiguations 
+ * tables, so wrapping these tables with a filter for their keys avoids most of 
+ * the database queries in UriCanonicalization. 
+ * The lookup counts how many queries the filter saved and how many keys 
+ * passed the filter but were not found in the table, from which the 
+ * false positive rate actually seen can be calculated.
+ */
+public class BloomFilteredLookup implements BatchString2StringLookup {
+  
+  private final String2StringLookup table;
+  private final BloomFilter filter;
+  
+  private final AtomicLong queries = new AtomicLong();
+  private final AtomicLong saved = new AtomicLong();
+  private final AtomicLong falsePositives = new AtomicLong();
+  
+  /**
+   * Wrap the table with a filter which must contain all keys of the table.
+   * @param table
+   * @param filter 
+   */
+  public BloomFilteredLookup(String2StringLookup table, BloomFilter filter) {
+    this.table = table;
+    this.filter = filter;
+  }
+  
+  public String2StringLookup getTable() {
+    return table;
+  }
+  
+  public BloomFilter getFilter() {
+    return filter;
+  }
+
+  @Override
+  public String get(String key) {
+    queries.incrementAndGet();
+    if(!filter.mightContain(key)) {
+      saved.incrementAndGet();
+      return null;
+    }
+    String value = table.get(key);
+    if(value == null) {
+      falsePositives.incrementAndGet();
+    }
+    return value;
+  }
+
+  @Override
+  public boolean contains(String key) {
+    queries.incrementAndGet();
+    if(!filter.mightContain(key)) {
+      saved.incrementAndGet();
+      return false;
+    }
+    boolean found = table.contains(key);
+    if(!found) {
+      falsePositives.incrementAndGet();
+    }
+    return found;
+  }
+
+  @Override
+  public Map<String,String> getAll(Collection<String> keys) {
+    Set<String> distinct = new LinkedHashSet<String>(keys);
+    List<String> passed = new ArrayList<String>(distinct.size());
+    for(String key : distinct) {
+      if(filter.mightContain(key)) {
+        passed.add(key);
+      }
+    }
+    queries.addAndGet(distinct.size());
+    saved.addAndGet(distinct.size() - passed.size());
+    Map<String,String> ret;
+    if(table instanceof BatchString2StringLookup) {
+      ret = ((BatchString2StringLookup)table).getAll(passed);
+    } else {
+      ret = new HashMap<String,String>();
+      for(String key : passed) {
+        String value = table.get(key);
+        if(value != null || table.contains(key)) {
+          ret.put(key, value);
+        }
+      }
+    }
+    falsePositives.addAndGet(passed.size() - ret.size());
+    return ret;
+  }
+  
+  /**
+   * Number of keys looked up.
+   * @return 
+   */
+  public long getQueries() {
+    return queries.get();
+  }
+  
+  /**
+   * Number of lookups which the filter answered without querying the table.
+   * @return 
+   */
+  public long getSavedQueries() {
+    return saved.get();
+  }
+  
+  /**
+   * Number of keys which passed the filter but were not found in the table.
+   * 
+   * For get, a key with a null value also counts as not found.
+   * @return 
+   */
+  public long getFalsePositives() {
+    return falsePositives.get();
+  }
+  
+  /**
+   * The false positive rate measured so far: the fraction of the lookups for keys
+   * not in the table which nevertheless passed the filter.
+   * @return 
+   */
+  public double getMeasuredFalsePositiveRate() {
+    long fp = falsePositives.get();
+    long negatives = fp + saved.get();
+    return negatives == 0 ? 0.0 : (double)fp / negatives;
+  }
+  
+  @Override
+  public String toString() {
+    return "BloomFilteredLookup(queries="+getQueries()+",saved="+getSavedQueries()+
+            ",falsePositives="+getFalsePositives()+",measuredFPR="+getMeasuredFalsePositiveRate()+
+            ",expectedFPR="+filter.getExpectedFalsePositiveRate()+")";
+  }
+  
+}
@@ -0,0 +1,233 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe cache for the results of UriCanonicalization.
+ * 
+ * The cache maps the URI as passed to UriCanonicalization.canonicalize to 
+ * the canonical URI, including null results for disambiguation pages.
+ * It is split into a number of independently locked segments, each of which 
+ * evicts its oldest entry once it is full, either the least recently used
+ * (LRU) or the least recently added (FIFO) one.
+ * <p>
+ * Because the cache is thread-safe, the same instance can be given to
+ * the UriCanonicalization objects of several duplicated pipelines, as long as
+ * all of them use the same tables. 
+ */
+public class CanonicalizationCache {
+  
+  public enum Eviction { LRU, FIFO }
+  
+  public static final int DEFAULT_CAPACITY = 100000;
+  
+  // marks a cached null result
+  private static final String NULL_URI = new String("");
+  
+  private final int capacity;
+  private final Eviction eviction;
+  private final Segment[] segments;
+  private final int segmentMask;
+  
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  
+  /**
+   * Create a LRU cache with the default capacity.
+   */
+  public CanonicalizationCache() {
+    this(DEFAULT_CAPACITY, Eviction.LRU);
+  }
+  
+  /**
+   * Create a cache that holds at most capacity entries.
+   * @param capacity
+   * @param eviction 
+   */
+  public CanonicalizationCache(int capacity, Eviction eviction) {
+    if(capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1 but is "+capacity);
+    }
+    this.capacity = capacity;
+    this.eviction = eviction;
+    // a power of two number of segments, but not more than 16 and 
+    // not so many that segments would get less than 64 entries
+    int nsegments = 1;
+    while(nsegments < 16 && nsegments*2*64 <= capacity) {
+      nsegments *= 2;
+    }
+    segmentMask = nsegments - 1;
+    segments = new Segment[nsegments];
+    for(int i=0; i<nsegments; i++) {
+      // distribute the capacity so that the segments add up to exactly capacity
+      int segmentCapacity = capacity / nsegments + (i < capacity % nsegments ? 1 : 0);
+      segments[i] = new Segment(segmentCapacity, eviction == Eviction.LRU);
+    }
+  }
+  
+  /**
+   * Return the canonical URI for the uri, from the cache or by running
+   * the canonicalization and caching the result.
+   * 
+   * The canonicalization itself runs without holding a lock, so if two 
+   * threads ask for the same uncached URI at the same time, both 
+   * may do the lookups.
+   * 
+   * @param uri
+   * @param canonicalization
+   * @return 
+   */
+  String canonicalize(String uri, UriCanonicalization canonicalization) {
+    String cached = lookup(uri);
+    if(cached != null) {
+      return decode(cached);
+    }
+    String result = canonicalization.canonicalizeUncached(uri);
+    put(uri, result);
+    return result;
+  }
+  
+  /**
+   * Return the cached entry for the uri, or null if there is none and count
+   * this as a hit or miss. A cached null result is returned as a special
+   * marker which must be converted with decode.
+   */
+  String lookup(String uri) {
+    Segment segment = segmentFor(uri);
+    String cached;
+    synchronized(segment) {
+      cached = segment.get(uri);
+    }
+    if(cached != null) {
+      hits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+    }
+    return cached;
+  }
+  
+  static String decode(String cached) {
+    return cached == NULL_URI ? null : cached;
+  }
+  
+  void put(String uri, String result) {
+    Segment segment = segmentFor(uri);
+    synchronized(segment) {
+      segment.put(uri, result == null ? NULL_URI : result);
+    }
+  }
+  
+  private Segment segmentFor(String uri) {
+    int h = uri.hashCode();
+    // spread the higher bits since the segment is chosen by the lowest bits
+    h ^= (h >>> 16);
+    return segments[h & segmentMask];
+  }
+  
+  public int getCapacity() {
+    return capacity;
+  }
+  
+  public Eviction getEviction() {
+    return eviction;
+  }
+  
+  /**
+   * Number of calls answered from the cache.
+   * @return 
+   */
+  public long getHits() {
+    return hits.get();
+  }
+  
+  /**
+   * Number of calls which had to run the canonicalization.
+   * @return 
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+  
+  /**
+   * Number of entries removed to make room for new ones.
+   * @return 
+   */
+  public long getEvictions() {
+    return evictions.get();
+  }
+  
+  /**
+   * Number of entries currently in the cache.
+   * @return 
+   */
+  public int size() {
+    int n = 0;
+    for(Segment segment : segments) {
+      synchronized(segment) {
+        n += segment.size();
+      }
+    }
+    return n;
+  }
+  
+  /**
+   * Remove all entries and reset the counters.
+   */
+  public void clear() {
+    for(Segment segment : segments) {
+      synchronized(segment) {
+        segment.clear();
+      }
+    }
+    hits.set(0);
+    misses.set(0);
+    evictions.set(0);
+  }
+  
+  @Override
+  public String toString() {
+    return "CanonicalizationCache(capacity="+capacity+",eviction="+eviction+
+            ",size="+size()+",hits="+getHits()+",misses="+getMisses()+
+            ",evictions="+getEvictions()+")";
+  }
+  
+  private class Segment extends LinkedHashMap<String,String> {
+    private static final long serialVersionUID = 1L;
+    private final int segmentCapacity;
+    Segment(int segmentCapacity, boolean accessOrder) {
+      super(16, 0.75f, accessOrder);
+      this.segmentCapacity = segmentCapacity;
+    }
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String,String> eldest) {
+      if(size() > segmentCapacity) {
+        evictions.incrementAndGet();
+        return true;
+      }
+      return false;
+    }
+  }
+  
+}
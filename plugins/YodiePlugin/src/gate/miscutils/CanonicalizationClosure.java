@@ -0,0 +1,241 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import gate.trendminer.lodie.utils.LodieUtils;
+import gate.util.GateRuntimeException;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the transitive closure of the UriCanonicalization steps offline.
+ * 
+ * The closure is a single table which maps each URI that can be affected by 
+ * the iri2uri, interlanguage, redirects or disambiguations tables to its 
+ * final canonical URI, or to the DISAMBIGUATION marker if the result is
+ * null. A URI which is not in the closure gets canonicalized to its 
+ * recoded form. URIs which are changed by recoding and for which the
+ * steps after recoding give a different result than the whole chain 
+ * have an additional entry with the key prefixed by RECODED_PREFIX. 
+ * With such a table, UriCanonicalization(closure) gives exactly the same
+ * results as UriCanonicalization with the original tables.
+ * <p>
+ * The tables can be read from the database or from tab separated files
+ * (see MappedTableCompiler) and the closure is written as a file for
+ * MappedString2StringTable:
+ * <pre>
+ * java gate.miscutils.CanonicalizationClosure -jdbc jdbcUrl keyColumn valueColumn interlanguage redirects iri2uri disambiguations outFile
+ * java gate.miscutils.CanonicalizationClosure -tsv interlanguage redirects iri2uri disambiguations outFile
+ * </pre>
+ * where each of the tables or files can be given as "-" if it is not used.
+ */
+public class CanonicalizationClosure {
+  
+  /** The value for URIs which canonicalize to null. */
+  public static final String DISAMBIGUATION = "\u0000";
+  /** The prefix for the keys which are only used for the recoded form of a URI. */
+  public static final String RECODED_PREFIX = "\u0001";
+  
+  private CanonicalizationClosure() {}
+  
+  /**
+   * Compute the closure for the given tables, any of which may be null.
+   * 
+   * @param interlanguage
+   * @param redirects
+   * @param iri2uri
+   * @param disambiguations only the keys of this table are used
+   * @return the closure table
+   */
+  public static Map<String,String> compute(Map<String,String> interlanguage, Map<String,String> redirects,
+          Map<String,String> iri2uri, Map<String,String> disambiguations) {
+    UriCanonicalization canonicalization = new UriCanonicalization(
+            lookupFor(interlanguage), lookupFor(redirects), lookupFor(iri2uri), lookupFor(disambiguations));
+    // all URIs for which the result may differ from just recoding them: all keys,
+    // and all values which are not properly recoded since recoding such a value
+    // may give a key, but the steps after recoding depend on the original value
+    Set<String> uris = new LinkedHashSet<String>();
+    List<Map<String,String>> tables = new ArrayList<Map<String,String>>();
+    tables.add(interlanguage);
+    tables.add(redirects);
+    tables.add(iri2uri);
+    tables.add(disambiguations);
+    for(Map<String,String> table : tables) {
+      if(table == null) {
+        continue;
+      }
+      uris.addAll(table.keySet());
+      if(table != disambiguations) {
+        for(String value : table.values()) {
+          if(value != null && !LodieUtils.recodeUri(value).equals(value)) {
+            uris.add(value);
+          }
+        }
+      }
+    }
+    Map<String,String> closure = new LinkedHashMap<String,String>(uris.size()*2);
+    for(String uri : uris) {
+      if(uri.startsWith(RECODED_PREFIX)) {
+        throw new GateRuntimeException("Cannot create a closure for URIs starting with \\u0001: "+uri);
+      }
+      closure.put(uri, encode(canonicalization.canonicalizeShortened(uri)));
+    }
+    // if a URI is not in the table, but its recoded form is, only the
+    // steps after recoding are used with the recoded form
+    for(String uri : uris) {
+      String recoded = canonicalization.canonicalizeRecoded(uri, uri);
+      String encoded = encode(recoded);
+      if(!encoded.equals(closure.get(uri))) {
+        closure.put(RECODED_PREFIX+uri, encoded);
+      }
+    }
+    return closure;
+  }
+  
+  private static String encode(String canonical) {
+    if(canonical == null) {
+      return DISAMBIGUATION;
+    }
+    if(canonical.equals(DISAMBIGUATION)) {
+      throw new GateRuntimeException("Cannot create a closure for the URI \\u0000");
+    }
+    return canonical;
+  }
+  
+  private static String2StringLookup lookupFor(final Map<String,String> table) {
+    if(table == null) {
+      return null;
+    }
+    return new String2StringLookup() {
+      @Override
+      public String get(String key) {
+        return table.get(key);
+      }
+      @Override
+      public boolean contains(String key) {
+        return table.containsKey(key);
+      }
+    };
+  }
+  
+  /**
+   * Read all rows of the table, if a key occurs more than once, the first value is used.
+   * @param jdbcUrl
+   * @param table
+   * @param keyColumn
+   * @param valueColumn
+   * @return 
+   */
+  public static Map<String,String> readJdbc(String jdbcUrl, String table, String keyColumn, String valueColumn) {
+    Map<String,String> ret = new LinkedHashMap<String,String>();
+    try {
+      Connection conn = DriverManager.getConnection(jdbcUrl);
+      try {
+        Statement st = conn.createStatement();
+        ResultSet rs = st.executeQuery("SELECT "+keyColumn+", "+valueColumn+" FROM "+table);
+        while(rs.next()) {
+          String key = rs.getString(1);
+          if(key != null && !ret.containsKey(key)) {
+            ret.put(key, rs.getString(2));
+          }
+        }
+        rs.close();
+        st.close();
+      } finally {
+        conn.close();
+      }
+    } catch (SQLException ex) {
+      throw new GateRuntimeException("Could not read table "+table+" from "+jdbcUrl, ex);
+    }
+    return ret;
+  }
+  
+  /**
+   * Read a UTF-8 tab separated file in the same format as for MappedTableCompiler.
+   * @param tsvFile
+   * @return 
+   */
+  public static Map<String,String> readTsv(File tsvFile) {
+    Map<String,String> ret = new LinkedHashMap<String,String>();
+    try {
+      BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(tsvFile), "UTF-8"));
+      try {
+        String line;
+        while((line = in.readLine()) != null) {
+          int tab = line.indexOf('\t');
+          String key = tab < 0 ? line : line.substring(0, tab);
+          if(!ret.containsKey(key)) {
+            ret.put(key, tab < 0 ? null : line.substring(tab+1));
+          }
+        }
+      } finally {
+        in.close();
+      }
+    } catch (IOException ex) {
+      throw new GateRuntimeException("Could not read file "+tsvFile, ex);
+    }
+    return ret;
+  }
+  
+  public static void main(String[] args) {
+    List<Map<String,String>> tables = new ArrayList<Map<String,String>>();
+    File outFile;
+    if(args.length == 9 && args[0].equals("-jdbc")) {
+      for(int i=0; i<4; i++) {
+        tables.add(args[i+4].equals("-") ? null : readJdbc(args[1], args[i+4], args[2], args[3]));
+      }
+      outFile = new File(args[8]);
+    } else if(args.length == 6 && args[0].equals("-tsv")) {
+      for(int i=0; i<4; i++) {
+        tables.add(args[i+1].equals("-") ? null : readTsv(new File(args[i+1])));
+      }
+      outFile = new File(args[5]);
+    } else {
+      System.err.println("Usage:");
+      System.err.println("  CanonicalizationClosure -jdbc jdbcUrl keyColumn valueColumn interlanguage redirects iri2uri disambiguations outFile");
+      System.err.println("  CanonicalizationClosure -tsv interlanguage redirects iri2uri disambiguations outFile");
+      System.err.println("Use - for a table that should not be used");
+      System.exit(1);
+      return;
+    }
+    Map<String,String> closure = compute(tables.get(0), tables.get(1), tables.get(2), tables.get(3));
+    MappedTableCompiler compiler = new MappedTableCompiler();
+    for(Map.Entry<String,String> e : closure.entrySet()) {
+      compiler.add(e.getKey(), e.getValue());
+    }
+    compiler.write(outFile);
+    System.err.println("Wrote closure with "+closure.size()+" entries to "+outFile);
+  }
+  
+}
@@ -0,0 +1,276 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gate.util.GateRuntimeException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fields of the candidate rows which should be kept, each with the type
+ * its values get converted to.
+ * 
+ * A projection is given as a list of specifications of the form "name:type"
+ * or just "name", where the type is one of string, int, long, double, boolean
+ * or object, the default. Values of type object are kept as they are, the 
+ * others are converted:
+ * <ul>
+ * <li>int, long, double: numbers get converted with intValue(), longValue()
+ * or doubleValue(), anything else, e.g. the string "null", becomes null, 
+ * like correct-null-features.jape does for scMeshFreq
+ * <li>boolean: booleans and the strings "true" and "false", anything else 
+ * becomes null
+ * <li>string: strings and the text of numbers and booleans, anything else
+ * becomes null
+ * </ul>
+ * Fields which are not in the projection are dropped, fields which are not 
+ * in a row are not added to it.
+ * <p>
+ * decodeJson decodes only the projected fields of the JSON info with a 
+ * streaming parser and skips everything else without creating any objects
+ * for it.
+ */
+public class FieldProjection {
+  
+  public enum Type { STRING, INT, LONG, DOUBLE, BOOLEAN, OBJECT }
+  
+  private static final JsonFactory factory = new JsonFactory();
+  private static final ObjectMapper mapper = new ObjectMapper(factory);
+  
+  private final Map<String,Type> types;
+  
+  /**
+   * Create the projection from the specifications.
+   * @param specs 
+   */
+  public FieldProjection(List<String> specs) {
+    types = new LinkedHashMap<String,Type>(specs.size()*2);
+    for(String spec : specs) {
+      spec = spec.trim();
+      if(spec.isEmpty()) {
+        continue;
+      }
+      int colon = spec.lastIndexOf(':');
+      Type type = Type.OBJECT;
+      String name = spec;
+      if(colon >= 0) {
+        name = spec.substring(0, colon).trim();
+        try {
+          type = Type.valueOf(spec.substring(colon+1).trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+          throw new GateRuntimeException("Unknown type in field projection: "+spec);
+        }
+      }
+      if(name.isEmpty()) {
+        throw new GateRuntimeException("No field name in field projection: "+spec);
+      }
+      // field names are the same String objects in all rows
+      types.put(name.intern(), type);
+    }
+  }
+  
+  /**
+   * Return the projection for the specifications, or null if there are none,
+   * which means all fields are kept as they are.
+   * @param specs
+   * @return 
+   */
+  public static FieldProjection of(List<String> specs) {
+    if(specs == null || specs.isEmpty()) {
+      return null;
+    }
+    return new FieldProjection(specs);
+  }
+  
+  /**
+   * The type of the field, or null if the field is not in the projection.
+   * @param field
+   * @return 
+   */
+  public Type typeOf(String field) {
+    return types.get(field);
+  }
+  
+  public boolean contains(String field) {
+    return types.containsKey(field);
+  }
+  
+  /**
+   * Number of fields in the projection.
+   * @return 
+   */
+  public int size() {
+    return types.size();
+  }
+  
+  /**
+   * Convert a value to the given type.
+   * @param type
+   * @param value
+   * @return 
+   */
+  public static Object convert(Type type, Object value) {
+    switch(type) {
+      case OBJECT:
+        return value;
+      case INT:
+        return (value instanceof Number) ? (Object)((Number)value).intValue() : null;
+      case LONG:
+        return (value instanceof Number) ? (Object)((Number)value).longValue() : null;
+      case DOUBLE:
+        return (value instanceof Number) ? (Object)((Number)value).doubleValue() : null;
+      case BOOLEAN:
+        if(value instanceof Boolean) {
+          return value;
+        } else if("true".equals(value)) {
+          return Boolean.TRUE;
+        } else if("false".equals(value)) {
+          return Boolean.FALSE;
+        }
+        return null;
+      case STRING:
+        return (value instanceof String || value instanceof Number || value instanceof Boolean) ?
+                value.toString() : null;
+      default:
+        throw new GateRuntimeException("Unknown type "+type);
+    }
+  }
+  
+  /**
+   * Return a new map with just the projected fields of the row, converted 
+   * to their types.
+   * @param row
+   * @return 
+   */
+  public Map<String,Object> project(Map<String,Object> row) {
+    Map<String,Object> ret = new HashMap<String,Object>(types.size()*2);
+    for(Map.Entry<String,Type> e : types.entrySet()) {
+      if(row.containsKey(e.getKey())) {
+        ret.put(e.getKey(), convert(e.getValue(), row.get(e.getKey())));
+      }
+    }
+    return ret;
+  }
+  
+  /**
+   * Decode the projected fields of the rows in the JSON info, which is an 
+   * array of objects or a single object.
+   * @param json
+   * @return 
+   */
+  public List<Map<String,Object>> decodeJson(String json) {
+    try {
+      JsonParser parser = factory.createParser(json);
+      try {
+        JsonToken token = parser.nextToken();
+        if(token == JsonToken.START_OBJECT) {
+          return Collections.singletonList(decodeObject(parser));
+        } else if(token != JsonToken.START_ARRAY) {
+          throw new GateRuntimeException("Not a JSON array or object: "+json);
+        }
+        List<Map<String,Object>> rows = new ArrayList<Map<String,Object>>();
+        while((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+          if(token != JsonToken.START_OBJECT) {
+            throw new GateRuntimeException("Not a JSON object in the array: "+json);
+          }
+          rows.add(decodeObject(parser));
+        }
+        return rows;
+      } finally {
+        parser.close();
+      }
+    } catch (IOException ex) {
+      throw new GateRuntimeException("Could not decode JSON info "+json, ex);
+    }
+  }
+  
+  // decode the object whose START_OBJECT is the current token
+  private Map<String,Object> decodeObject(JsonParser parser) throws IOException {
+    Map<String,Object> row = new HashMap<String,Object>(types.size()*2);
+    while(parser.nextToken() == JsonToken.FIELD_NAME) {
+      // the parser interns field names, like the keys of the projection
+      String field = parser.getCurrentName();
+      Type type = types.get(field);
+      JsonToken token = parser.nextToken();
+      if(type == null) {
+        parser.skipChildren();
+        continue;
+      }
+      row.put(field, decodeValue(parser, token, type));
+    }
+    return row;
+  }
+  
+  private static Object decodeValue(JsonParser parser, JsonToken token, Type type) throws IOException {
+    switch(token) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_NUMBER_INT:
+        if(parser.getNumberType() == JsonParser.NumberType.INT) {
+          switch(type) {
+            case INT: case OBJECT: return parser.getIntValue();
+            case LONG: return (long)parser.getIntValue();
+            case DOUBLE: return (double)parser.getIntValue();
+            default: break;
+          }
+        }
+        return convert(type, parser.getNumberValue());
+      case VALUE_NUMBER_FLOAT:
+        // the same Double as decoding the whole JSON gives
+        return convert(type, parser.getDoubleValue());
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        return convert(type, token == JsonToken.VALUE_TRUE);
+      case VALUE_STRING:
+        return convert(type, parser.getText());
+      default:
+        // an array or object
+        if(type == Type.OBJECT) {
+          return mapper.readValue(parser, Object.class);
+        }
+        parser.skipChildren();
+        return null;
+    }
+  }
+  
+  /**
+   * The specifications of the projection in the form "name:type".
+   * @return 
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for(Map.Entry<String,Type> e : types.entrySet()) {
+      if(sb.length() > 0) { sb.append(','); }
+      sb.append(e.getKey()).append(':').append(e.getValue().name().toLowerCase());
+    }
+    return sb.toString();
+  }
+  
+}
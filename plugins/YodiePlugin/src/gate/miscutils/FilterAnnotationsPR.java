@@ -173,35 +173,23 @@ public class FilterAnnotationsPR  extends AbstractLanguageAnalyser
     }
     //System.out.println("Filter by annotations: "+byAnns.size());
     Set<Annotation> toDelete = new HashSet<Annotation>();
-    // TODO: we could optimize here: if the criterion is not a negative one and we do not have 
-    // any by annotations, then the whole loop can be skipped because we will never find anything to
-    // filter!
-    for(Annotation ann : toFilter) {
-      AnnotationSet checkSet;
-      if(getFilterCriterion() == FilterCriterion.COEXTENSIVE || getFilterCriterion() == FilterCriterion.NOT_COEXTENSIVE) {
-        checkSet = Utils.getCoextensiveAnnotations(byAnns, ann);
-      } else if(getFilterCriterion() == FilterCriterion.OVERLAPPING || getFilterCriterion() == FilterCriterion.NOT_OVERLAPPING) {
-        checkSet = Utils.getOverlappingAnnotations(byAnns, ann);
-      } else if(getFilterCriterion() == FilterCriterion.CONTAINED || getFilterCriterion() == FilterCriterion.NOT_CONTAINED) {
-        // here we need to find out of the annotation ann is contained by any of the annotation in byAnn
-        checkSet = Utils.getCoveringAnnotations(byAnns, ann);
-      } else if(getFilterCriterion() == FilterCriterion.CONTAINING || getFilterCriterion() == FilterCriterion.NOT_CONTAINING) {
-        checkSet = Utils.getContainedAnnotations(byAnns, ann);
-      } else {
-        throw new GateRuntimeException("Logic stopped working");
+    FilterCriterion criterion = getFilterCriterion();
+    boolean negative = criterion == FilterCriterion.NOT_COEXTENSIVE || criterion == FilterCriterion.NOT_CONTAINED ||
+         criterion == FilterCriterion.NOT_CONTAINING  || criterion == FilterCriterion.NOT_OVERLAPPING;
+    if(byAnns.isEmpty()) {
+      // nothing can match, so a positive criterion never filters anything and
+      // a negative one filters everything
+      if(negative) {
+        toDelete.addAll(toFilter);
       }
-      // now if the filter criterion is "NOT_", filter if checkSet has no annotations, otherwise
-      // filter if checkSet does have any annotations
-      //System.out.println("Processing ann="+ann+" found "+checkSet.size());
-      boolean removeIt = false;
-      if(getFilterCriterion() == FilterCriterion.NOT_COEXTENSIVE || getFilterCriterion() == FilterCriterion.NOT_CONTAINED ||
-         getFilterCriterion() == FilterCriterion.NOT_CONTAINING  || getFilterCriterion() == FilterCriterion.NOT_OVERLAPPING) {
-        removeIt = (checkSet.size() == 0);
-      } else {
-        removeIt = (checkSet.size() > 0);
-      }
-      if(removeIt) {
-        toDelete.add(ann);
+    } else {
+      // index the offsets of the by annotations once, then each check is 
+      // a few binary searches instead of creating a new annotation set 
+      OffsetIndex byIndex = new OffsetIndex(byAnns);
+      for(Annotation ann : toFilter) {
+        if(byIndex.matches(criterion, ann)) {
+          toDelete.add(ann);
+        }
       }
     }
     if(outputSet != null) {
@@ -0,0 +1,58 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import com.jpetrak.gate.jdbclookup.JdbcString2StringLR;
+
+/**
+ * A String2StringLookup backed by a JdbcString2StringLR.
+ */
+public class JdbcString2StringLookup implements String2StringLookup {
+  
+  private final JdbcString2StringLR lr;
+  
+  public JdbcString2StringLookup(JdbcString2StringLR lr) {
+    this.lr = lr;
+  }
+  
+  /**
+   * Wrap the language resource, or return null if it is null.
+   * @param lr
+   * @return 
+   */
+  public static String2StringLookup wrap(JdbcString2StringLR lr) {
+    return lr == null ? null : new JdbcString2StringLookup(lr);
+  }
+  
+  public JdbcString2StringLR getLR() {
+    return lr;
+  }
+
+  @Override
+  public String get(String key) {
+    return lr.get(key);
+  }
+
+  @Override
+  public boolean contains(String key) {
+    return lr.contains(key);
+  }
+  
+}
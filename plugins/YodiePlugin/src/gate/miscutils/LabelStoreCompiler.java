@@ -0,0 +1,477 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gate.util.GateRuntimeException;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the label info table of the lookupinfo pipeline into a label 
+ * store directory for MappedLabelStore.
+ * 
+ * The label info table maps each label to a JSON array with one object for
+ * each candidate, and the fields which describe the concept itself (the 
+ * preferred name, semantic types, vocabularies, frequencies ...) are repeated
+ * for every label of the concept. The label store keeps those fields in a
+ * separate table with one fixed size record per CUI, and the label table only
+ * has the ids of the CUIs plus the fields which are not in the CUI record.
+ * All strings are stored once in a string pool.
+ * <p>
+ * The CUI record of a CUI has the values of the row where the CUI is first 
+ * seen. Where another row of the same CUI has a different value or does not
+ * have a field at all, the difference is stored with that row, so the store 
+ * gives back exactly the same rows as the JSON, with the same value types.
+ * <p>
+ * This is meant to be run offline, either directly from the database or from
+ * a file with a label, a tab and the JSON on each line:
+ * <pre>
+ * java gate.miscutils.LabelStoreCompiler -jdbc jdbcUrl table keyColumn valueColumn outDir [cuiFields]
+ * java gate.miscutils.LabelStoreCompiler -tsv inFile outDir [cuiFields]
+ * </pre>
+ * where cuiFields is a comma separated list of the fields to put in the CUI 
+ * records, the first of which identifies the CUI. The default is 
+ * DEFAULT_CUI_FIELDS. If a label occurs more than once, the first row is used.
+ */
+public class LabelStoreCompiler {
+  
+  public static final List<String> DEFAULT_CUI_FIELDS = Arrays.asList(
+          "inst", "PREF", "STY", "TUI", "CUIVOCABS", "scMeshFreq", "scPageRank");
+  
+  private static final ObjectMapper mapper = new ObjectMapper();
+  
+  private final MappedTableCompiler labels = new MappedTableCompiler();
+  private final int ncuifields;
+  
+  private final Map<String,Integer> fieldIds = new HashMap<String,Integer>();
+  private final List<String> fields = new ArrayList<String>();
+  private final Map<String,Integer> stringIds = new HashMap<String,Integer>();
+  private final List<String> strings = new ArrayList<String>();
+  private final Map<String,Integer> cuiIds = new HashMap<String,Integer>();
+  // the tags and payloads of the CUI records, ncuifields per CUI
+  private final ByteList cuiTags = new ByteList();
+  private final LongList cuiPayloads = new LongList();
+  // true if any value of the CUI field needs 8 bytes
+  private final boolean[] wide;
+  private int nrows = 0;
+  
+  public LabelStoreCompiler() {
+    this(DEFAULT_CUI_FIELDS);
+  }
+  
+  /**
+   * Create a compiler which puts the given fields into the CUI records.
+   * @param cuiFields the fields, the first of which identifies the CUI
+   */
+  public LabelStoreCompiler(List<String> cuiFields) {
+    if(cuiFields.isEmpty()) {
+      throw new GateRuntimeException("Need at least the CUI field");
+    }
+    for(String field : cuiFields) {
+      fieldId(field);
+    }
+    ncuifields = fields.size();
+    wide = new boolean[ncuifields];
+  }
+  
+  /**
+   * Number of labels added.
+   * @return 
+   */
+  public int size() {
+    return labels.size();
+  }
+  
+  /**
+   * Number of distinct CUIs added.
+   * @return 
+   */
+  public int getNumberOfCuis() {
+    return cuiIds.size();
+  }
+  
+  /**
+   * Add the label with its JSON info, unless the label was already added.
+   * @param label
+   * @param json a JSON array of objects or a single object
+   */
+  @SuppressWarnings("unchecked")
+  public void add(String label, String json) {
+    if(label == null || json == null) {
+      return;
+    }
+    Object value;
+    try {
+      value = mapper.readValue(json, Object.class);
+    } catch (IOException ex) {
+      throw new GateRuntimeException("Could not decode the info for label "+label, ex);
+    }
+    List<Map<String,Object>> rows;
+    if(value instanceof List) {
+      rows = (List<Map<String,Object>>)value;
+    } else if(value instanceof Map) {
+      rows = Arrays.asList((Map<String,Object>)value);
+    } else {
+      throw new GateRuntimeException("Info for label "+label+" is not a JSON array or object: "+json);
+    }
+    add(label, rows);
+  }
+  
+  /**
+   * Add the label with its decoded rows, unless the label was already added.
+   * @param label
+   * @param rows 
+   */
+  public void add(String label, List<Map<String,Object>> rows) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      for(Map<String,Object> row : rows) {
+        writeRow(out, row);
+        nrows++;
+      }
+      out.flush();
+    } catch (IOException ex) {
+      // cannot happen for a byte array
+      throw new GateRuntimeException(ex);
+    }
+    labels.addBytes(label, bytes.toByteArray());
+  }
+  
+  private void writeRow(DataOutputStream out, Map<String,Object> row) throws IOException {
+    Object cui = row.get(fields.get(0));
+    int cuiId = -1;
+    if(cui instanceof String) {
+      Integer id = cuiIds.get((String)cui);
+      if(id == null) {
+        id = cuiIds.size();
+        cuiIds.put((String)cui, id);
+        for(int f=0; f<ncuifields; f++) {
+          String field = fields.get(f);
+          byte tag = row.containsKey(field) ? tagOf(row.get(field)) : LabelStoreFormat.ABSENT;
+          cuiTags.add(tag);
+          cuiPayloads.add(payloadOf(row.get(field), tag));
+          if(LabelStoreFormat.payloadSize(tag) == 8) {
+            wide[f] = true;
+          }
+        }
+      }
+      cuiId = id;
+    }
+    // everything which is not the same as in the CUI record is extra
+    List<Integer> extraFields = new ArrayList<Integer>();
+    List<Object> extraValues = new ArrayList<Object>();
+    if(cuiId >= 0) {
+      for(int f=0; f<ncuifields; f++) {
+        String field = fields.get(f);
+        byte tag = row.containsKey(field) ? tagOf(row.get(field)) : LabelStoreFormat.ABSENT;
+        int r = cuiId*ncuifields + f;
+        if(tag != cuiTags.get(r) || payloadOf(row.get(field), tag) != cuiPayloads.get(r)) {
+          extraFields.add(f);
+          extraValues.add(tag == LabelStoreFormat.ABSENT ? Absent.INSTANCE : row.get(field));
+        }
+      }
+    }
+    for(Map.Entry<String,Object> e : row.entrySet()) {
+      int f = fieldId(e.getKey());
+      if(cuiId < 0 || f >= ncuifields) {
+        extraFields.add(f);
+        extraValues.add(e.getValue());
+      }
+    }
+    if(extraFields.size() > Short.MAX_VALUE || fields.size() > Short.MAX_VALUE) {
+      throw new GateRuntimeException("Too many fields in row "+row);
+    }
+    out.writeInt(cuiId);
+    out.writeShort(extraFields.size());
+    for(int i=0; i<extraFields.size(); i++) {
+      Object value = extraValues.get(i);
+      byte tag = (value == Absent.INSTANCE) ? LabelStoreFormat.ABSENT : tagOf(value);
+      out.writeShort(extraFields.get(i));
+      out.writeByte(tag);
+      long payload = payloadOf(value, tag);
+      if(LabelStoreFormat.payloadSize(tag) == 4) {
+        out.writeInt((int)payload);
+      } else if(LabelStoreFormat.payloadSize(tag) == 8) {
+        out.writeLong(payload);
+      }
+    }
+  }
+  
+  private static byte tagOf(Object value) {
+    if(value == null) {
+      return LabelStoreFormat.NULL;
+    } else if(value instanceof String) {
+      return LabelStoreFormat.STRING;
+    } else if(value instanceof Integer) {
+      return LabelStoreFormat.INT;
+    } else if(value instanceof Long) {
+      return LabelStoreFormat.LONG;
+    } else if(value instanceof Double) {
+      return LabelStoreFormat.DOUBLE;
+    } else if(value instanceof Boolean) {
+      return ((Boolean)value) ? LabelStoreFormat.TRUE : LabelStoreFormat.FALSE;
+    } else {
+      return LabelStoreFormat.JSON;
+    }
+  }
+  
+  private long payloadOf(Object value, byte tag) {
+    switch(tag) {
+      case LabelStoreFormat.STRING:
+        return stringId((String)value);
+      case LabelStoreFormat.INT:
+      case LabelStoreFormat.LONG:
+        return ((Number)value).longValue();
+      case LabelStoreFormat.DOUBLE:
+        return Double.doubleToRawLongBits((Double)value);
+      case LabelStoreFormat.JSON:
+        try {
+          return stringId(mapper.writeValueAsString(value));
+        } catch (JsonProcessingException ex) {
+          throw new GateRuntimeException("Cannot encode value "+value, ex);
+        }
+      default:
+        return 0;
+    }
+  }
+  
+  private int stringId(String s) {
+    Integer id = stringIds.get(s);
+    if(id == null) {
+      id = strings.size();
+      stringIds.put(s, id);
+      strings.add(s);
+    }
+    return id;
+  }
+  
+  private int fieldId(String field) {
+    Integer id = fieldIds.get(field);
+    if(id == null) {
+      id = fields.size();
+      fieldIds.put(field, id);
+      fields.add(field);
+    }
+    return id;
+  }
+  
+  /**
+   * Write the label store files for everything added so far into the 
+   * directory, which is created if necessary.
+   * @param outDir 
+   */
+  public void write(File outDir) {
+    if(!outDir.isDirectory() && !outDir.mkdirs()) {
+      throw new GateRuntimeException("Could not create directory "+outDir);
+    }
+    labels.write(new File(outDir, LabelStoreFormat.LABELS_FILE));
+    File cuisFile = new File(outDir, LabelStoreFormat.CUIS_FILE);
+    int[] fieldNameIds = new int[fields.size()];
+    for(int f=0; f<fields.size(); f++) {
+      fieldNameIds[f] = stringId(fields.get(f));
+    }
+    int ncuis = cuiIds.size();
+    long recordSize = 0;
+    for(int f=0; f<ncuifields; f++) {
+      recordSize += 1 + (wide[f] ? 8 : 4);
+    }
+    long stringsStart = LabelStoreFormat.HEADER_SIZE + 4L*fields.size() + ncuifields + 
+            recordSize*ncuis + 4L*(strings.size()+1);
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cuisFile), 1<<16));
+      try {
+        out.writeInt(LabelStoreFormat.MAGIC);
+        out.writeInt(LabelStoreFormat.VERSION);
+        out.writeInt(fields.size());
+        out.writeInt(ncuifields);
+        out.writeInt(ncuis);
+        out.writeInt(strings.size());
+        for(int id : fieldNameIds) {
+          out.writeInt(id);
+        }
+        for(int f=0; f<ncuifields; f++) {
+          out.writeByte(wide[f] ? 8 : 4);
+        }
+        for(int r=0; r<ncuis*ncuifields; r++) {
+          out.writeByte(cuiTags.get(r));
+          if(wide[r % ncuifields]) {
+            out.writeLong(cuiPayloads.get(r));
+          } else {
+            out.writeInt((int)cuiPayloads.get(r));
+          }
+        }
+        long offset = 0;
+        for(String s : strings) {
+          out.writeInt((int)offset);
+          offset += MappedTableFormat.encodedLength(s);
+          if(stringsStart + offset > Integer.MAX_VALUE) {
+            throw new GateRuntimeException("Label store too large for a single file: "+cuisFile);
+          }
+        }
+        out.writeInt((int)offset);
+        for(String s : strings) {
+          out.write(MappedTableFormat.encode(s));
+        }
+      } finally {
+        out.close();
+      }
+    } catch (IOException ex) {
+      throw new GateRuntimeException("Could not write label store file "+cuisFile, ex);
+    }
+  }
+  
+  /**
+   * Add all rows of the table with the label and JSON info from the given columns.
+   * @param jdbcUrl
+   * @param table
+   * @param keyColumn
+   * @param valueColumn 
+   */
+  public void addFromJdbc(String jdbcUrl, String table, String keyColumn, String valueColumn) {
+    try {
+      Connection conn = DriverManager.getConnection(jdbcUrl);
+      try {
+        Statement st = conn.createStatement();
+        ResultSet rs = st.executeQuery("SELECT "+keyColumn+", "+valueColumn+" FROM "+table);
+        while(rs.next()) {
+          add(rs.getString(1), rs.getString(2));
+        }
+        rs.close();
+        st.close();
+      } finally {
+        conn.close();
+      }
+    } catch (SQLException ex) {
+      throw new GateRuntimeException("Could not read table "+table+" from "+jdbcUrl, ex);
+    }
+  }
+  
+  /**
+   * Add all labels from a UTF-8 file with a label, a tab and the JSON info on 
+   * each line.
+   * @param tsvFile 
+   */
+  public void addFromTsv(File tsvFile) {
+    try {
+      BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(tsvFile), "UTF-8"));
+      try {
+        String line;
+        while((line = in.readLine()) != null) {
+          int tab = line.indexOf('\t');
+          if(tab >= 0) {
+            add(line.substring(0, tab), line.substring(tab+1));
+          }
+        }
+      } finally {
+        in.close();
+      }
+    } catch (IOException ex) {
+      throw new GateRuntimeException("Could not read file "+tsvFile, ex);
+    }
+  }
+  
+  public static void main(String[] args) {
+    File outDir;
+    List<String> cuiFields = DEFAULT_CUI_FIELDS;
+    String[] source;
+    if((args.length == 6 || args.length == 7) && args[0].equals("-jdbc")) {
+      source = Arrays.copyOfRange(args, 1, 5);
+      outDir = new File(args[5]);
+    } else if((args.length == 3 || args.length == 4) && args[0].equals("-tsv")) {
+      source = new String[]{args[1]};
+      outDir = new File(args[2]);
+    } else {
+      System.err.println("Usage:");
+      System.err.println("  LabelStoreCompiler -jdbc jdbcUrl table keyColumn valueColumn outDir [cuiFields]");
+      System.err.println("  LabelStoreCompiler -tsv inFile outDir [cuiFields]");
+      System.exit(1);
+      return;
+    }
+    if(args.length == 7 || args.length == 4) {
+      cuiFields = Arrays.asList(args[args.length-1].split(","));
+    }
+    long start = System.currentTimeMillis();
+    LabelStoreCompiler compiler = new LabelStoreCompiler(cuiFields);
+    if(source.length == 4) {
+      compiler.addFromJdbc(source[0], source[1], source[2], source[3]);
+    } else {
+      compiler.addFromTsv(new File(source[0]));
+    }
+    compiler.write(outDir);
+    System.err.println("Compiled "+compiler.size()+" labels with "+compiler.nrows+
+            " rows for "+compiler.getNumberOfCuis()+" CUIs to "+outDir+
+            " in "+(System.currentTimeMillis()-start)+"ms");
+  }
+  
+  // marks a field which is in the CUI record but not in the row
+  private static final class Absent {
+    static final Absent INSTANCE = new Absent();
+  }
+  
+  // growable primitive arrays, to keep the records for millions of CUIs small
+  private static final class ByteList {
+    private byte[] data = new byte[1024];
+    private int size = 0;
+    void add(byte b) {
+      if(size == data.length) {
+        data = Arrays.copyOf(data, size*2);
+      }
+      data[size++] = b;
+    }
+    byte get(int i) {
+      return data[i];
+    }
+  }
+  
+  private static final class LongList {
+    private long[] data = new long[1024];
+    private int size = 0;
+    void add(long l) {
+      if(size == data.length) {
+        data = Arrays.copyOf(data, size*2);
+      }
+      data[size++] = l;
+    }
+    long get(int i) {
+      return data[i];
+    }
+  }
+  
+}
@@ -0,0 +1,85 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+/**
+ * Constants shared by LabelStoreCompiler and MappedLabelStore.
+ * 
+ * A label store is a directory with two files. LABELS_FILE is a table in the
+ * format of MappedTableCompiler which maps each label to the binary 
+ * encoding of its candidate rows:
+ * <pre>
+ * for each row: int cui (-1 for none), short nextra, 
+ *   nextra times: short field, byte tag, payload
+ * </pre>
+ * A row is created from the record of its CUI, if there is one, and then the 
+ * extra fields are set, or removed if their tag is ABSENT. 
+ * <p>
+ * CUIS_FILE has the fixed size records for all CUIs and the string pool, 
+ * all integers big endian:
+ * <pre>
+ * int magic, int version, int nfields, int ncuifields, int ncuis, int nstrings
+ * int[nfields] string id of each field name, the first ncuifields are the 
+ *   fields in the CUI records
+ * byte[ncuifields] payload size of each field in the records, 4 or 8
+ * records: for each CUI field, byte tag, payload
+ * int[nstrings+1] offset of each string, relative to the start of the strings
+ * strings: UTF-8 bytes, as for MappedTableCompiler
+ * </pre>
+ * The payload of a value depends on its tag: the string id for STRING 
+ * and JSON, the int for INT, the long or raw double bits for LONG and DOUBLE, 
+ * nothing for the other tags. In the records, the payload takes the size given 
+ * for the field, whatever the tag. 
+ */
+final class LabelStoreFormat {
+  
+  private LabelStoreFormat() {}
+  
+  static final int MAGIC = 0x594c5354;  // "YLST"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 24;
+  
+  static final String LABELS_FILE = "labels.bin";
+  static final String CUIS_FILE = "cuis.bin";
+  
+  // the field is not in the row
+  static final byte ABSENT = 0;
+  static final byte NULL = 1;
+  static final byte STRING = 2;
+  static final byte INT = 3;
+  static final byte LONG = 4;
+  static final byte DOUBLE = 5;
+  static final byte FALSE = 6;
+  static final byte TRUE = 7;
+  // any other value, stored as its JSON string
+  static final byte JSON = 8;
+  
+  static int payloadSize(byte tag) {
+    switch(tag) {
+      case STRING: case INT: case JSON:
+        return 4;
+      case LONG: case DOUBLE:
+        return 8;
+      default:
+        return 0;
+    }
+  }
+  
+}
@@ -0,0 +1,309 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gate.util.GateRuntimeException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only label store in memory-mapped files created by 
+ * LabelStoreCompiler.
+ * 
+ * This gives the same candidate rows as decoding the JSON info from the 
+ * label info table, but without a database and without JSON parsing: the 
+ * label is found with the minimal perfect hash of MappedString2StringTable,
+ * and each row is put together from the fixed size record of its CUI and
+ * the fields stored with the label. The files are mapped read-only, so 
+ * they do not take up any heap and are shared through the page cache by 
+ * all JVMs which use the same store.
+ * <p>
+ * The store is thread-safe. Each of the two files is limited to 2GB.
+ */
+public class MappedLabelStore {
+  
+  private static final Map<File,MappedLabelStore> SHARED = new HashMap<File,MappedLabelStore>();
+  
+  private static final ObjectMapper mapper = new ObjectMapper();
+  
+  private final File dir;
+  private final MappedString2StringTable labels;
+  private final MappedByteBuffer cuis;
+  private final String[] fields;
+  private final int ncuifields;
+  private final int ncuis;
+  private final int nstrings;
+  // offset of each CUI field in the record
+  private final int[] fieldOffsets;
+  private final boolean[] wide;
+  private final int recordSize;
+  private final int recordsStart;
+  private final int stringOffsetsStart;
+  private final int stringsStart;
+  
+  /**
+   * Map the label store in the directory.
+   * @param dir 
+   */
+  public MappedLabelStore(File dir) {
+    this.dir = dir;
+    labels = new MappedString2StringTable(new File(dir, LabelStoreFormat.LABELS_FILE));
+    File cuisFile = new File(dir, LabelStoreFormat.CUIS_FILE);
+    cuis = MappedTableFormat.map(cuisFile);
+    if(cuis.capacity() < LabelStoreFormat.HEADER_SIZE || 
+       cuis.getInt(0) != LabelStoreFormat.MAGIC) {
+      throw new GateRuntimeException("Not a label store file: "+cuisFile);
+    }
+    if(cuis.getInt(4) != LabelStoreFormat.VERSION) {
+      throw new GateRuntimeException("Unsupported label store version "+cuis.getInt(4)+": "+cuisFile);
+    }
+    int nfields = cuis.getInt(8);
+    ncuifields = cuis.getInt(12);
+    ncuis = cuis.getInt(16);
+    nstrings = cuis.getInt(20);
+    int pos = LabelStoreFormat.HEADER_SIZE + 4*nfields;
+    fieldOffsets = new int[ncuifields];
+    wide = new boolean[ncuifields];
+    int size = 0;
+    for(int f=0; f<ncuifields; f++) {
+      fieldOffsets[f] = size;
+      wide[f] = cuis.get(pos+f) == 8;
+      size += 1 + (wide[f] ? 8 : 4);
+    }
+    recordSize = size;
+    recordsStart = pos + ncuifields;
+    stringOffsetsStart = recordsStart + recordSize*ncuis;
+    stringsStart = stringOffsetsStart + 4*(nstrings+1);
+    fields = new String[nfields];
+    for(int f=0; f<nfields; f++) {
+      // the same String objects are used as keys for all rows
+      fields[f] = string(cuis.getInt(LabelStoreFormat.HEADER_SIZE + 4*f)).intern();
+    }
+  }
+  
+  /**
+   * Return the store for the directory shared by everything in this JVM,
+   * mapping it if this is the first request for it.
+   * @param dir
+   * @return 
+   */
+  public static MappedLabelStore shared(File dir) {
+    File key;
+    try {
+      key = dir.getCanonicalFile();
+    } catch (IOException ex) {
+      key = dir.getAbsoluteFile();
+    }
+    synchronized(SHARED) {
+      MappedLabelStore store = SHARED.get(key);
+      if(store == null) {
+        store = new MappedLabelStore(key);
+        SHARED.put(key, store);
+      }
+      return store;
+    }
+  }
+  
+  public File getDirectory() {
+    return dir;
+  }
+  
+  /**
+   * Number of labels in the store.
+   * @return 
+   */
+  public int size() {
+    return labels.size();
+  }
+  
+  /**
+   * Number of distinct CUIs in the store.
+   * @return 
+   */
+  public int getNumberOfCuis() {
+    return ncuis;
+  }
+  
+  /**
+   * Return true if the label is in the store.
+   * @param label
+   * @return 
+   */
+  public boolean contains(String label) {
+    return labels.contains(label);
+  }
+  
+  /**
+   * Return new maps with the candidate rows for the label, or null if 
+   * the label is not in the store.
+   * @param label
+   * @return 
+   */
+  public List<Map<String,Object>> get(String label) {
+    return get(label, null);
+  }
+  
+  /**
+   * Return new maps with just the projected fields of the candidate rows 
+   * for the label, or null if the label is not in the store. Fields which 
+   * are not in the projection are skipped without decoding them.
+   * @param label
+   * @param projection the projection, or null for all fields
+   * @return 
+   */
+  public List<Map<String,Object>> get(String label, FieldProjection projection) {
+    ByteBuffer value = labels.getValueBuffer(label);
+    if(value == null) {
+      return null;
+    }
+    List<Map<String,Object>> rows = new ArrayList<Map<String,Object>>();
+    int pos = 0;
+    int end = value.limit();
+    while(pos < end) {
+      int cui = value.getInt(pos);
+      int nextra = value.getShort(pos+4);
+      pos += 6;
+      Map<String,Object> row = (projection == null) ? 
+              new HashMap<String,Object>() : 
+              new HashMap<String,Object>(projection.size()*2);
+      if(cui >= 0) {
+        int record = recordsStart + cui*recordSize;
+        for(int f=0; f<ncuifields; f++) {
+          FieldProjection.Type type = null;
+          if(projection != null && (type = projection.typeOf(fields[f])) == null) {
+            continue;
+          }
+          int p = record + fieldOffsets[f];
+          byte tag = cuis.get(p);
+          if(tag != LabelStoreFormat.ABSENT) {
+            long payload = wide[f] ? cuis.getLong(p+1) : cuis.getInt(p+1);
+            row.put(fields[f], value(tag, payload, type));
+          }
+        }
+      }
+      for(int i=0; i<nextra; i++) {
+        String field = fields[value.getShort(pos)];
+        byte tag = value.get(pos+2);
+        pos += 3;
+        int size = LabelStoreFormat.payloadSize(tag);
+        FieldProjection.Type type = null;
+        if(projection != null && (type = projection.typeOf(field)) == null) {
+          pos += size;
+          continue;
+        }
+        long payload = 0;
+        if(size == 4) {
+          payload = value.getInt(pos);
+        } else if(size == 8) {
+          payload = value.getLong(pos);
+        }
+        pos += size;
+        if(tag == LabelStoreFormat.ABSENT) {
+          row.remove(field);
+        } else {
+          row.put(field, value(tag, payload, type));
+        }
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+  
+  /**
+   * Return the rows for all the labels, labels which are not in the store
+   * are not in the returned map.
+   * @param labels
+   * @return 
+   */
+  public Map<String,List<Map<String,Object>>> getAll(Collection<String> labels) {
+    return getAll(labels, null);
+  }
+  
+  /**
+   * Return the rows with the projected fields for all the labels, labels which 
+   * are not in the store are not in the returned map.
+   * @param labels
+   * @param projection the projection, or null for all fields
+   * @return 
+   */
+  public Map<String,List<Map<String,Object>>> getAll(Collection<String> labels, FieldProjection projection) {
+    Map<String,List<Map<String,Object>>> ret = new HashMap<String,List<Map<String,Object>>>(labels.size()*2);
+    for(String label : labels) {
+      if(!ret.containsKey(label)) {
+        List<Map<String,Object>> rows = get(label, projection);
+        if(rows != null) {
+          ret.put(label, rows);
+        }
+      }
+    }
+    return ret;
+  }
+  
+  // the value converted to the type, unless the type is null
+  private Object value(byte tag, long payload, FieldProjection.Type type) {
+    if(type != null && type != FieldProjection.Type.OBJECT) {
+      return FieldProjection.convert(type, value(tag, payload, null));
+    }
+    switch(tag) {
+      case LabelStoreFormat.NULL:
+        return null;
+      case LabelStoreFormat.STRING:
+        return string((int)payload);
+      case LabelStoreFormat.INT:
+        return (int)payload;
+      case LabelStoreFormat.LONG:
+        return payload;
+      case LabelStoreFormat.DOUBLE:
+        return Double.longBitsToDouble(payload);
+      case LabelStoreFormat.FALSE:
+        return Boolean.FALSE;
+      case LabelStoreFormat.TRUE:
+        return Boolean.TRUE;
+      case LabelStoreFormat.JSON:
+        try {
+          return mapper.readValue(string((int)payload), Object.class);
+        } catch (IOException ex) {
+          throw new GateRuntimeException("Could not decode value in label store "+dir, ex);
+        }
+      default:
+        throw new GateRuntimeException("Invalid value tag "+tag+" in label store "+dir);
+    }
+  }
+  
+  private String string(int id) {
+    int from = cuis.getInt(stringOffsetsStart + 4*id);
+    int to = cuis.getInt(stringOffsetsStart + 4*id + 4);
+    return MappedTableFormat.decode(cuis, stringsStart+from, to-from);
+  }
+  
+  @Override
+  public String toString() {
+    return "MappedLabelStore("+dir+",labels="+size()+",cuis="+ncuis+")";
+  }
+  
+}
@@ -0,0 +1,173 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import gate.util.GateRuntimeException;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * A read-only string to string table in a memory-mapped file created by
+ * MappedTableCompiler.
+ * 
+ * This can be used instead of the JDBC backed tables for UriCanonicalization. 
+ * The file is mapped read-only, so the data does not take up any heap
+ * and is shared through the page cache by all JVMs which use the same file. 
+ * A lookup hashes the key to its slot with a minimal perfect hash function
+ * and compares the key stored in that slot, without any allocation other 
+ * than for the returned value.
+ * <p>
+ * The table is thread-safe. Files are limited to 2GB.
+ */
+public class MappedString2StringTable implements String2StringLookup {
+  
+  private final File file;
+  private final MappedByteBuffer buffer;
+  private final int nkeys;
+  private final int nbuckets;
+  private final int seedsStart;
+  private final int offsetsStart;
+  private final int recordsStart;
+  
+  /**
+   * Map the table file.
+   * @param file 
+   */
+  public MappedString2StringTable(File file) {
+    this.file = file;
+    buffer = MappedTableFormat.map(file);
+    if(buffer.capacity() < MappedTableFormat.HEADER_SIZE || 
+       buffer.getInt(0) != MappedTableFormat.MAGIC) {
+      throw new GateRuntimeException("Not a table file: "+file);
+    }
+    if(buffer.getInt(4) != MappedTableFormat.VERSION) {
+      throw new GateRuntimeException("Unsupported table file version "+buffer.getInt(4)+": "+file);
+    }
+    nkeys = buffer.getInt(8);
+    nbuckets = buffer.getInt(12);
+    seedsStart = MappedTableFormat.HEADER_SIZE;
+    offsetsStart = seedsStart + 4*nbuckets;
+    recordsStart = offsetsStart + 4*nkeys;
+  }
+  
+  public File getFile() {
+    return file;
+  }
+  
+  /**
+   * Number of keys in the table.
+   * @return 
+   */
+  public int size() {
+    return nkeys;
+  }
+
+  @Override
+  public String get(String key) {
+    int record = findRecord(key);
+    if(record < 0) {
+      return null;
+    }
+    int keylen = buffer.getInt(record);
+    int valuePos = record + 4 + keylen;
+    int valuelen = buffer.getInt(valuePos);
+    if(valuelen < 0) {
+      return null;
+    }
+    return MappedTableFormat.decode(buffer, valuePos+4, valuelen);
+  }
+  
+  /**
+   * Return a buffer which contains just the bytes of the value for the key,
+   * or null if the key is not in the table or its value is null.
+   * This is for tables with binary values added with 
+   * MappedTableCompiler.addBytes.
+   * @param key
+   * @return 
+   */
+  ByteBuffer getValueBuffer(String key) {
+    int record = findRecord(key);
+    if(record < 0) {
+      return null;
+    }
+    int valuePos = record + 4 + buffer.getInt(record);
+    int valuelen = buffer.getInt(valuePos);
+    if(valuelen < 0) {
+      return null;
+    }
+    ByteBuffer value = buffer.duplicate();
+    value.limit(valuePos+4+valuelen).position(valuePos+4);
+    return value.slice();
+  }
+
+  @Override
+  public boolean contains(String key) {
+    return findRecord(key) >= 0;
+  }
+  
+  // return the absolute position of the record for the key, or -1 if the key is not in the table
+  private int findRecord(String key) {
+    if(nkeys == 0) {
+      return -1;
+    }
+    int seed = buffer.getInt(seedsStart + 4*MappedTableFormat.slot(key, 0, nbuckets));
+    int slot = seed < 0 ? -seed-1 : MappedTableFormat.slot(key, seed, nkeys);
+    int record = recordsStart + buffer.getInt(offsetsStart + 4*slot);
+    return keyEquals(record, key) ? record : -1;
+  }
+  
+  // compare the key at the record with the string without encoding the string
+  private boolean keyEquals(int record, String key) {
+    int len = buffer.getInt(record);
+    int pos = record + 4;
+    int end = pos + len;
+    int n = key.length();
+    for(int i=0; i<n; i++) {
+      char c = key.charAt(i);
+      if(c < 0x80) {
+        if(pos >= end || buffer.get(pos++) != (byte)c) { return false; }
+      } else if(c < 0x800) {
+        if(pos+2 > end || 
+           buffer.get(pos++) != (byte)(0xC0 | (c >> 6)) ||
+           buffer.get(pos++) != (byte)(0x80 | (c & 0x3F))) { return false; }
+      } else if(Character.isHighSurrogate(c) && i+1 < n && Character.isLowSurrogate(key.charAt(i+1))) {
+        int cp = Character.toCodePoint(c, key.charAt(++i));
+        if(pos+4 > end ||
+           buffer.get(pos++) != (byte)(0xF0 | (cp >> 18)) ||
+           buffer.get(pos++) != (byte)(0x80 | ((cp >> 12) & 0x3F)) ||
+           buffer.get(pos++) != (byte)(0x80 | ((cp >> 6) & 0x3F)) ||
+           buffer.get(pos++) != (byte)(0x80 | (cp & 0x3F))) { return false; }
+      } else {
+        if(pos+3 > end ||
+           buffer.get(pos++) != (byte)(0xE0 | (c >> 12)) ||
+           buffer.get(pos++) != (byte)(0x80 | ((c >> 6) & 0x3F)) ||
+           buffer.get(pos++) != (byte)(0x80 | (c & 0x3F))) { return false; }
+      }
+    }
+    return pos == end;
+  }
+  
+  @Override
+  public String toString() {
+    return "MappedString2StringTable("+file+",size="+nkeys+")";
+  }
+  
+}
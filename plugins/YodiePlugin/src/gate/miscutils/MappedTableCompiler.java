@@ -0,0 +1,307 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import gate.util.GateRuntimeException;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiles a string to string table into a file for MappedString2StringTable.
+ * 
+ * This is meant to be run offline to convert the redirects, interlanguage,
+ * iri2uri and disambiguations tables once, either directly from the database 
+ * or from a tab separated file:
+ * <pre>
+ * java gate.miscutils.MappedTableCompiler -jdbc jdbcUrl table keyColumn valueColumn outFile
+ * java gate.miscutils.MappedTableCompiler -tsv inFile outFile
+ * </pre>
+ * In a tab separated file, everything after the first tab is the value and
+ * a line without a tab is a key with a null value. 
+ * If a key occurs more than once, the first value is used.
+ * <p>
+ * The keys are placed with a hash and displace minimal perfect hash function:
+ * the keys get distributed into buckets of about two keys and for each 
+ * bucket a seed is searched that hashes all its keys to still free slots,
+ * starting with the largest buckets. Buckets with a single key are put into
+ * the remaining free slots directly. 
+ */
+public class MappedTableCompiler {
+  
+  private static final int MAX_SEED_TRIES = 100000000;
+  
+  private final List<String> keys = new ArrayList<String>();
+  // the UTF-8 encoded values
+  private final List<byte[]> values = new ArrayList<byte[]>();
+  private final Set<String> seen = new HashSet<String>();
+  
+  /**
+   * Add an entry, unless there already is one for the key.
+   * @param key
+   * @param value the value, may be null 
+   */
+  public void add(String key, String value) {
+    addBytes(key, value == null ? null : MappedTableFormat.encode(value));
+  }
+  
+  /**
+   * Add an entry with an arbitrary binary value, unless there already is one 
+   * for the key. Such values can only be read with 
+   * MappedString2StringTable.getValueBuffer.
+   * @param key
+   * @param value the value, may be null
+   */
+  void addBytes(String key, byte[] value) {
+    if(key == null) {
+      throw new GateRuntimeException("Key must not be null");
+    }
+    if(seen.add(key)) {
+      keys.add(key);
+      values.add(value);
+    }
+  }
+  
+  public int size() {
+    return keys.size();
+  }
+  
+  /**
+   * Add all rows of the table with the key and value from the given columns.
+   * @param jdbcUrl
+   * @param table
+   * @param keyColumn
+   * @param valueColumn 
+   */
+  public void addFromJdbc(String jdbcUrl, String table, String keyColumn, String valueColumn) {
+    try {
+      Connection conn = DriverManager.getConnection(jdbcUrl);
+      try {
+        Statement st = conn.createStatement();
+        ResultSet rs = st.executeQuery("SELECT "+keyColumn+", "+valueColumn+" FROM "+table);
+        while(rs.next()) {
+          add(rs.getString(1), rs.getString(2));
+        }
+        rs.close();
+        st.close();
+      } finally {
+        conn.close();
+      }
+    } catch (SQLException ex) {
+      throw new GateRuntimeException("Could not read table "+table+" from "+jdbcUrl, ex);
+    }
+  }
+  
+  /**
+   * Add all entries from a UTF-8 tab separated file.
+   * @param tsvFile 
+   */
+  public void addFromTsv(File tsvFile) {
+    try {
+      BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(tsvFile), "UTF-8"));
+      try {
+        String line;
+        while((line = in.readLine()) != null) {
+          int tab = line.indexOf('\t');
+          if(tab < 0) {
+            add(line, null);
+          } else {
+            add(line.substring(0, tab), line.substring(tab+1));
+          }
+        }
+      } finally {
+        in.close();
+      }
+    } catch (IOException ex) {
+      throw new GateRuntimeException("Could not read file "+tsvFile, ex);
+    }
+  }
+  
+  /**
+   * Write the table file for all the entries added so far.
+   * @param outFile 
+   */
+  public void write(File outFile) {
+    int n = keys.size();
+    int nbuckets = n/2 + 1;
+    // distribute the keys into the buckets with a counting sort
+    int[] bucketOf = new int[n];
+    int[] bucketStart = new int[nbuckets+1];
+    for(int i=0; i<n; i++) {
+      bucketOf[i] = MappedTableFormat.slot(keys.get(i), 0, nbuckets);
+      bucketStart[bucketOf[i]+1]++;
+    }
+    int maxBucketSize = 0;
+    for(int b=0; b<nbuckets; b++) {
+      maxBucketSize = Math.max(maxBucketSize, bucketStart[b+1]);
+      bucketStart[b+1] += bucketStart[b];
+    }
+    int[] members = new int[n];
+    int[] fill = new int[nbuckets];
+    for(int i=0; i<n; i++) {
+      int b = bucketOf[i];
+      members[bucketStart[b] + fill[b]++] = i;
+    }
+    bucketOf = null;
+    fill = null;
+    // order the buckets by decreasing size, again with a counting sort
+    int[] sizeStart = new int[maxBucketSize+2];
+    for(int b=0; b<nbuckets; b++) {
+      sizeStart[maxBucketSize - (bucketStart[b+1]-bucketStart[b]) + 1]++;
+    }
+    for(int s=0; s<=maxBucketSize; s++) {
+      sizeStart[s+1] += sizeStart[s];
+    }
+    int[] bucketOrder = new int[nbuckets];
+    for(int b=0; b<nbuckets; b++) {
+      bucketOrder[sizeStart[maxBucketSize - (bucketStart[b+1]-bucketStart[b])]++] = b;
+    }
+    
+    int[] seeds = new int[nbuckets];
+    int[] keyInSlot = new int[n];
+    boolean[] used = new boolean[n];
+    int[] slots = new int[maxBucketSize];
+    int nextFree = 0;
+    for(int b : bucketOrder) {
+      int from = bucketStart[b];
+      int size = bucketStart[b+1] - from;
+      if(size == 0) {
+        break;
+      } else if(size == 1) {
+        while(used[nextFree]) { nextFree++; }
+        used[nextFree] = true;
+        keyInSlot[nextFree] = members[from];
+        seeds[b] = -nextFree-1;
+      } else {
+        int seed = findSeed(members, from, size, used, slots);
+        seeds[b] = seed;
+        for(int j=0; j<size; j++) {
+          used[slots[j]] = true;
+          keyInSlot[slots[j]] = members[from+j];
+        }
+      }
+    }
+    writeFile(outFile, seeds, keyInSlot);
+  }
+  
+  private int findSeed(int[] members, int from, int size, boolean[] used, int[] slots) {
+    int n = used.length;
+    for(int seed=1; seed<MAX_SEED_TRIES; seed++) {
+      boolean ok = true;
+      for(int j=0; j<size && ok; j++) {
+        int slot = MappedTableFormat.slot(keys.get(members[from+j]), seed, n);
+        if(used[slot]) {
+          ok = false;
+        } else {
+          for(int k=0; k<j; k++) {
+            if(slots[k] == slot) { ok = false; break; }
+          }
+        }
+        slots[j] = slot;
+      }
+      if(ok) {
+        return seed;
+      }
+    }
+    throw new GateRuntimeException("Could not find a hash function for a bucket of "+size+" keys");
+  }
+  
+  private void writeFile(File outFile, int[] seeds, int[] keyInSlot) {
+    int n = keyInSlot.length;
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outFile), 1<<16));
+      try {
+        out.writeInt(MappedTableFormat.MAGIC);
+        out.writeInt(MappedTableFormat.VERSION);
+        out.writeInt(n);
+        out.writeInt(seeds.length);
+        for(int seed : seeds) {
+          out.writeInt(seed);
+        }
+        long offset = 0;
+        long recordsStart = MappedTableFormat.HEADER_SIZE + 4L*seeds.length + 4L*n;
+        for(int slot=0; slot<n; slot++) {
+          out.writeInt((int)offset);
+          int i = keyInSlot[slot];
+          byte[] value = values.get(i);
+          offset += 8 + MappedTableFormat.encodedLength(keys.get(i)) + 
+                  (value == null ? 0 : value.length);
+          if(recordsStart + offset > Integer.MAX_VALUE) {
+            throw new GateRuntimeException("Table too large for a single file: "+outFile);
+          }
+        }
+        for(int slot=0; slot<n; slot++) {
+          int i = keyInSlot[slot];
+          byte[] key = MappedTableFormat.encode(keys.get(i));
+          out.writeInt(key.length);
+          out.write(key);
+          byte[] value = values.get(i);
+          if(value == null) {
+            out.writeInt(-1);
+          } else {
+            out.writeInt(value.length);
+            out.write(value);
+          }
+        }
+      } finally {
+        out.close();
+      }
+    } catch (IOException ex) {
+      throw new GateRuntimeException("Could not write table file "+outFile, ex);
+    }
+  }
+  
+  public static void main(String[] args) {
+    MappedTableCompiler compiler = new MappedTableCompiler();
+    File outFile;
+    if(args.length == 6 && args[0].equals("-jdbc")) {
+      compiler.addFromJdbc(args[1], args[2], args[3], args[4]);
+      outFile = new File(args[5]);
+    } else if(args.length == 3 && args[0].equals("-tsv")) {
+      compiler.addFromTsv(new File(args[1]));
+      outFile = new File(args[2]);
+    } else {
+      System.err.println("Usage:");
+      System.err.println("  MappedTableCompiler -jdbc jdbcUrl table keyColumn valueColumn outFile");
+      System.err.println("  MappedTableCompiler -tsv inFile outFile");
+      System.exit(1);
+      return;
+    }
+    long start = System.currentTimeMillis();
+    compiler.write(outFile);
+    System.err.println("Compiled "+compiler.size()+" entries to "+outFile+
+            " in "+(System.currentTimeMillis()-start)+"ms");
+  }
+  
+}
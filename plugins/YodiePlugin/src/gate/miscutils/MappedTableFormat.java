@@ -0,0 +1,163 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import gate.util.GateRuntimeException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Constants, hashing, string coding and file mapping shared by 
+ * MappedTableCompiler and MappedString2StringTable, and by 
+ * LabelStoreCompiler and MappedLabelStore.
+ * 
+ * The file format, all integers big endian:
+ * <pre>
+ * int magic, int version, int nkeys, int nbuckets
+ * int[nbuckets] bucket seeds
+ * int[nkeys] offset of the record for each slot, relative to the start of the records
+ * records: int keylength, key bytes, int valuelength (-1 for null), value bytes
+ * </pre>
+ * A key is in slot hash(key, seed) mod nkeys, where seed is the seed of
+ * the bucket hash(key, 0) mod nbuckets. A negative seed s means that the 
+ * only key of the bucket is directly in slot -s-1. 
+ * Strings are stored in UTF-8, unpaired surrogates as three bytes each.
+ */
+final class MappedTableFormat {
+  
+  private MappedTableFormat() {}
+  
+  static final int MAGIC = 0x594d5048;  // "YMPH"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 16;
+  
+  /**
+   * Map the whole file read-only.
+   */
+  static MappedByteBuffer map(File file) {
+    try {
+      RandomAccessFile raf = new RandomAccessFile(file, "r");
+      try {
+        FileChannel channel = raf.getChannel();
+        if(channel.size() > Integer.MAX_VALUE) {
+          throw new GateRuntimeException("Table file larger than 2GB: "+file);
+        }
+        // the mapping stays valid after the channel is closed
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      } finally {
+        raf.close();
+      }
+    } catch (IOException ex) {
+      throw new GateRuntimeException("Could not map table file "+file, ex);
+    }
+  }
+  
+  static int hash(String s, int seed) {
+    int h = seed * 0x9E3779B9 ^ 0x2F0B3A49;
+    int len = s.length();
+    for(int i=0; i<len; i++) {
+      h ^= s.charAt(i);
+      h *= 0x5BD1E995;
+      h ^= h >>> 15;
+    }
+    h ^= len;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return h;
+  }
+  
+  static int slot(String s, int seed, int n) {
+    return (hash(s, seed) & 0x7fffffff) % n;
+  }
+  
+  static int encodedLength(String s) {
+    int len = 0;
+    int n = s.length();
+    for(int i=0; i<n; i++) {
+      char c = s.charAt(i);
+      if(c < 0x80) {
+        len += 1;
+      } else if(c < 0x800) {
+        len += 2;
+      } else if(Character.isHighSurrogate(c) && i+1 < n && Character.isLowSurrogate(s.charAt(i+1))) {
+        len += 4;
+        i++;
+      } else {
+        len += 3;
+      }
+    }
+    return len;
+  }
+  
+  static byte[] encode(String s) {
+    byte[] b = new byte[encodedLength(s)];
+    int j = 0;
+    int n = s.length();
+    for(int i=0; i<n; i++) {
+      char c = s.charAt(i);
+      if(c < 0x80) {
+        b[j++] = (byte)c;
+      } else if(c < 0x800) {
+        b[j++] = (byte)(0xC0 | (c >> 6));
+        b[j++] = (byte)(0x80 | (c & 0x3F));
+      } else if(Character.isHighSurrogate(c) && i+1 < n && Character.isLowSurrogate(s.charAt(i+1))) {
+        int cp = Character.toCodePoint(c, s.charAt(++i));
+        b[j++] = (byte)(0xF0 | (cp >> 18));
+        b[j++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+        b[j++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+        b[j++] = (byte)(0x80 | (cp & 0x3F));
+      } else {
+        b[j++] = (byte)(0xE0 | (c >> 12));
+        b[j++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+        b[j++] = (byte)(0x80 | (c & 0x3F));
+      }
+    }
+    return b;
+  }
+  
+  static String decode(ByteBuffer buffer, int pos, int len) {
+    char[] chars = new char[len];
+    int n = 0;
+    int end = pos + len;
+    while(pos < end) {
+      int b = buffer.get(pos++) & 0xFF;
+      if(b < 0x80) {
+        chars[n++] = (char)b;
+      } else if(b < 0xE0) {
+        chars[n++] = (char)(((b & 0x1F) << 6) | (buffer.get(pos++) & 0x3F));
+      } else if(b < 0xF0) {
+        chars[n++] = (char)(((b & 0x0F) << 12) | ((buffer.get(pos++) & 0x3F) << 6) | (buffer.get(pos++) & 0x3F));
+      } else {
+        int cp = ((b & 0x07) << 18) | ((buffer.get(pos++) & 0x3F) << 12) | 
+                 ((buffer.get(pos++) & 0x3F) << 6) | (buffer.get(pos++) & 0x3F);
+        n += Character.toChars(cp, chars, n);
+      }
+    }
+    return new String(chars, 0, n);
+  }
+  
+}
@@ -0,0 +1,237 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import gate.Annotation;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Sorted offset arrays over a collection of annotations for fast spatial checks.
+ * 
+ * The index is built once in O(m log m) for m annotations and then answers
+ * if any of the indexed annotations overlaps, is coextensive with, covers or
+ * is contained in a given span with a few binary searches, without 
+ * creating any annotation sets. The checks give exactly the same results as 
+ * checking the size of the sets returned by Utils.getOverlappingAnnotations, 
+ * getCoextensiveAnnotations, getCoveringAnnotations and getContainedAnnotations, 
+ * including for zero length annotations.
+ * <p>
+ * The index is a snapshot: annotations added or removed later are not reflected.
+ */
+public class OffsetIndex {
+  
+  private final int size;
+  // start and end offsets, sorted by start, then end
+  private final long[] starts;
+  private final long[] ends;
+  // the maximum end of all annotations up to and including the index, in start order
+  private final long[] prefixMaxEnd;
+  // the minimum end of all annotations from the index on, in start order
+  private final long[] suffixMinEnd;
+  // start and end offsets, sorted by end, then start
+  private final long[] endsByEnd;
+  private final long[] startsByEnd;
+  
+  public OffsetIndex(Collection<Annotation> anns) {
+    size = anns.size();
+    long[] byStart = new long[size*2];
+    long[] byEnd = new long[size*2];
+    int i = 0;
+    for(Annotation ann : anns) {
+      long start = ann.getStartNode().getOffset();
+      long end = ann.getEndNode().getOffset();
+      byStart[i] = start; byStart[i+1] = end;
+      byEnd[i] = end; byEnd[i+1] = start;
+      i += 2;
+    }
+    sortPairs(byStart);
+    sortPairs(byEnd);
+    starts = new long[size];
+    ends = new long[size];
+    endsByEnd = new long[size];
+    startsByEnd = new long[size];
+    for(i=0; i<size; i++) {
+      starts[i] = byStart[2*i];
+      ends[i] = byStart[2*i+1];
+      endsByEnd[i] = byEnd[2*i];
+      startsByEnd[i] = byEnd[2*i+1];
+    }
+    prefixMaxEnd = new long[size];
+    suffixMinEnd = new long[size];
+    for(i=0; i<size; i++) {
+      prefixMaxEnd[i] = (i == 0) ? ends[i] : Math.max(prefixMaxEnd[i-1], ends[i]);
+    }
+    for(i=size-1; i>=0; i--) {
+      suffixMinEnd[i] = (i == size-1) ? ends[i] : Math.min(suffixMinEnd[i+1], ends[i]);
+    }
+  }
+  
+  public int size() {
+    return size;
+  }
+  
+  public boolean isEmpty() {
+    return size == 0;
+  }
+  
+  /**
+   * Return true if any indexed annotation overlaps the span, as in Utils.getOverlappingAnnotations.
+   * 
+   * This is the case if an annotation starts before the span and ends after 
+   * the start of the span, or starts within the span. 
+   * 
+   * @param start
+   * @param end
+   * @return 
+   */
+  public boolean hasOverlapping(long start, long end) {
+    int from = lowerBound(starts, size, start);
+    if(from > 0 && prefixMaxEnd[from-1] > start) {
+      return true;
+    }
+    return from < size && starts[from] < end;
+  }
+  
+  /**
+   * Return true if any indexed annotation has exactly the same offsets.
+   * @param start
+   * @param end
+   * @return 
+   */
+  public boolean hasCoextensive(long start, long end) {
+    int from = lowerBound(starts, size, start);
+    int to = lowerBound(starts, size, start+1);
+    int i = Arrays.binarySearch(ends, from, to, end);
+    return i >= 0;
+  }
+  
+  /**
+   * Return true if any indexed annotation covers the span, as in Utils.getCoveringAnnotations.
+   * @param start
+   * @param end
+   * @return 
+   */
+  public boolean hasCovering(long start, long end) {
+    int to = lowerBound(starts, size, start+1);
+    return to > 0 && prefixMaxEnd[to-1] >= end;
+  }
+  
+  /**
+   * Return true if any indexed annotation is contained in the span, as in 
+   * Utils.getContainedAnnotations. 
+   * 
+   * A contained annotation must start before the end of the span, so a 
+   * zero length annotation at the end of the span does not count and a zero 
+   * length span never contains anything.
+   * 
+   * @param start
+   * @param end
+   * @return 
+   */
+  public boolean hasContained(long start, long end) {
+    int from = lowerBound(starts, size, start);
+    if(from == size) {
+      return false;
+    }
+    // anything starting at or after start and ending before end must also start before end
+    if(suffixMinEnd[from] < end) {
+      return true;
+    }
+    // otherwise only an annotation ending exactly at end and starting 
+    // within [start,end) can be contained
+    int i = lowerBound(endsByEnd, size, end);
+    int to = lowerBound(endsByEnd, size, end+1);
+    int j = lowerBound(startsByEnd, i, to, start);
+    return j < to && startsByEnd[j] < end;
+  }
+  
+  /**
+   * Return true if the annotation matches the criterion with respect to 
+   * the indexed annotations, in the same way as FilterAnnotationsPR checks it.
+   * @param criterion
+   * @param ann
+   * @return 
+   */
+  public boolean matches(FilterAnnotationsPR.FilterCriterion criterion, Annotation ann) {
+    long start = ann.getStartNode().getOffset();
+    long end = ann.getEndNode().getOffset();
+    switch(criterion) {
+      case OVERLAPPING: return hasOverlapping(start, end);
+      case NOT_OVERLAPPING: return !hasOverlapping(start, end);
+      case COEXTENSIVE: return hasCoextensive(start, end);
+      case NOT_COEXTENSIVE: return !hasCoextensive(start, end);
+      case CONTAINED: return hasCovering(start, end);
+      case NOT_CONTAINED: return !hasCovering(start, end);
+      case CONTAINING: return hasContained(start, end);
+      case NOT_CONTAINING: return !hasContained(start, end);
+      default: throw new IllegalArgumentException("Unknown criterion "+criterion);
+    }
+  }
+  
+  // first index in [0,n) with a[index] >= key, or n
+  private static int lowerBound(long[] a, int n, long key) {
+    return lowerBound(a, 0, n, key);
+  }
+  
+  private static int lowerBound(long[] a, int from, int to, long key) {
+    int lo = from, hi = to;
+    while(lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if(a[mid] < key) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+  
+  // sort the array of (first,second) pairs stored at even and odd indices
+  private static void sortPairs(long[] pairs) {
+    int n = pairs.length / 2;
+    Long2[] tmp = new Long2[n];
+    for(int i=0; i<n; i++) {
+      tmp[i] = new Long2(pairs[2*i], pairs[2*i+1]);
+    }
+    Arrays.sort(tmp);
+    for(int i=0; i<n; i++) {
+      pairs[2*i] = tmp[i].first;
+      pairs[2*i+1] = tmp[i].second;
+    }
+  }
+  
+  private static final class Long2 implements Comparable<Long2> {
+    final long first;
+    final long second;
+    Long2(long first, long second) {
+      this.first = first;
+      this.second = second;
+    }
+    @Override
+    public int compareTo(Long2 o) {
+      if(first != o.first) {
+        return first < o.first ? -1 : 1;
+      }
+      return second < o.second ? -1 : (second == o.second ? 0 : 1);
+    }
+  }
+  
+}
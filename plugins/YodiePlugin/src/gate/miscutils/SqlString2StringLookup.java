@@ -0,0 +1,202 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+import gate.util.GateRuntimeException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A BatchString2StringLookup which directly queries a key/value table over JDBC.
+ * 
+ * This can be used with the same H2 databases as the JdbcString2StringLR 
+ * resources, but getAll looks up many keys with a single 
+ * <code>SELECT key, value FROM table WHERE key IN (...)</code> query 
+ * instead of one query per key.
+ * To limit the number of different statements, the keys are looked up in chunks
+ * of at most MAX_KEYS_PER_QUERY keys, and each chunk is padded by repeating
+ * its last key to the next power of two, so at most one prepared statement
+ * per power of two is ever created.
+ * <p>
+ * All methods are synchronized, since they share one connection.
+ */
+public class SqlString2StringLookup implements BatchString2StringLookup {
+  
+  public static final int MAX_KEYS_PER_QUERY = 512;
+  
+  private static final Pattern identifier = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*");
+  
+  private final Connection connection;
+  private final boolean ownConnection;
+  private final String table;
+  private final String keyColumn;
+  private final String valueColumn;
+  // statements for 1, 2, 4, ... keys 
+  private final PreparedStatement[] statements = new PreparedStatement[Integer.numberOfTrailingZeros(MAX_KEYS_PER_QUERY)+1];
+  
+  /**
+   * Create the lookup for the table using the given connection, which is not
+   * closed by close().
+   * @param connection
+   * @param table
+   * @param keyColumn
+   * @param valueColumn 
+   */
+  public SqlString2StringLookup(Connection connection, String table, String keyColumn, String valueColumn) {
+    this(connection, false, table, keyColumn, valueColumn);
+  }
+  
+  /**
+   * Create the lookup for the table using a new connection for the JDBC URL.
+   * 
+   * The connection is closed when close() is called.
+   * @param jdbcUrl
+   * @param table
+   * @param keyColumn
+   * @param valueColumn 
+   */
+  public SqlString2StringLookup(String jdbcUrl, String table, String keyColumn, String valueColumn) {
+    this(openConnection(jdbcUrl), true, table, keyColumn, valueColumn);
+  }
+  
+  private SqlString2StringLookup(Connection connection, boolean ownConnection, 
+          String table, String keyColumn, String valueColumn) {
+    checkIdentifier(table);
+    checkIdentifier(keyColumn);
+    checkIdentifier(valueColumn);
+    this.connection = connection;
+    this.ownConnection = ownConnection;
+    this.table = table;
+    this.keyColumn = keyColumn;
+    this.valueColumn = valueColumn;
+  }
+  
+  private static Connection openConnection(String jdbcUrl) {
+    try {
+      return DriverManager.getConnection(jdbcUrl);
+    } catch (SQLException ex) {
+      throw new GateRuntimeException("Could not open database connection for "+jdbcUrl, ex);
+    }
+  }
+  
+  private static void checkIdentifier(String name) {
+    if(name == null || !identifier.matcher(name).matches()) {
+      throw new GateRuntimeException("Not a valid table or column name: "+name);
+    }
+  }
+  
+  @Override
+  public synchronized String get(String key) {
+    return query(new String[]{key}, 1).get(key);
+  }
+
+  @Override
+  public synchronized boolean contains(String key) {
+    return query(new String[]{key}, 1).containsKey(key);
+  }
+
+  @Override
+  public synchronized Map<String,String> getAll(Collection<String> keys) {
+    List<String> distinct = new ArrayList<String>(new LinkedHashSet<String>(keys));
+    Map<String,String> ret = new HashMap<String,String>(distinct.size()*2);
+    String[] chunk = new String[MAX_KEYS_PER_QUERY];
+    for(int from=0; from<distinct.size(); from+=MAX_KEYS_PER_QUERY) {
+      int n = Math.min(MAX_KEYS_PER_QUERY, distinct.size()-from);
+      for(int i=0; i<n; i++) {
+        chunk[i] = distinct.get(from+i);
+      }
+      ret.putAll(query(chunk, n));
+    }
+    return ret;
+  }
+  
+  /**
+   * Close the prepared statements and the connection, if it was opened by this object.
+   */
+  public synchronized void close() {
+    try {
+      for(int i=0; i<statements.length; i++) {
+        if(statements[i] != null) {
+          statements[i].close();
+          statements[i] = null;
+        }
+      }
+      if(ownConnection) {
+        connection.close();
+      }
+    } catch (SQLException ex) {
+      throw new GateRuntimeException("Error closing the lookup for table "+table, ex);
+    }
+  }
+  
+  private Map<String,String> query(String[] keys, int n) {
+    int slot = 32 - Integer.numberOfLeadingZeros(n-1);  // ceil(log2(n))
+    int nparms = 1 << slot;
+    Map<String,String> ret = new HashMap<String,String>(n*2);
+    try {
+      PreparedStatement st = statements[slot];
+      if(st == null) {
+        st = connection.prepareStatement(sqlFor(nparms));
+        statements[slot] = st;
+      }
+      for(int i=0; i<nparms; i++) {
+        st.setString(i+1, keys[Math.min(i, n-1)]);
+      }
+      ResultSet rs = st.executeQuery();
+      try {
+        while(rs.next()) {
+          String key = rs.getString(1);
+          // if the key occurs more than once, use the first row, like a single key lookup
+          if(!ret.containsKey(key)) {
+            ret.put(key, rs.getString(2));
+          }
+        }
+      } finally {
+        rs.close();
+      }
+    } catch (SQLException ex) {
+      throw new GateRuntimeException("Error querying table "+table, ex);
+    }
+    return ret;
+  }
+  
+  private String sqlFor(int nparms) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("SELECT ").append(keyColumn).append(", ").append(valueColumn);
+    sb.append(" FROM ").append(table).append(" WHERE ").append(keyColumn).append(" IN (");
+    for(int i=0; i<nparms; i++) {
+      if(i > 0) { sb.append(','); }
+      sb.append('?');
+    }
+    sb.append(')');
+    return sb.toString();
+  }
+  
+}
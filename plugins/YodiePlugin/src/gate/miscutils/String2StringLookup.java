@@ -0,0 +1,45 @@
+/* 
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.miscutils;
+
+/**
+ * A read-only string to string table as used by UriCanonicalization.
+ * 
+ * This is what UriCanonicalization needs from the redirects, interlanguage,
+ * iri2uri and disambiguations tables, so that other implementations than
+ * the JDBC backed language resources can be used for these tables.
+ */
+public interface String2StringLookup {
+  
+  /**
+   * Return the value for the key or null if the key is not in the table.
+   * @param key
+   * @return 
+   */
+  public String get(String key);
+  
+  /**
+   * Return true if the key is in the table.
+   * @param key
+   * @return 
+   */
+  public boolean contains(String key);
+  
+}
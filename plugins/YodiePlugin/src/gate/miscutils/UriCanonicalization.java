@@ -21,6 +21,15 @@ package gate.miscutils;
 
 import com.jpetrak.gate.jdbclookup.*;
 import gate.trendminer.lodie.utils.LodieUtils;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -36,10 +45,12 @@ import gate.trendminer.lodie.utils.LodieUtils;
  */
 public class UriCanonicalization {
   
-  private JdbcString2StringLR interlanguage = null;
-  private JdbcString2StringLR redirects = null;
-  private JdbcString2StringLR iri2uri = null;
-  private JdbcString2StringLR disambiguations = null;
+  private String2StringLookup interlanguage = null;
+  private String2StringLookup redirects = null;
+  private String2StringLookup iri2uri = null;
+  private String2StringLookup disambiguations = null;
+  private String2StringLookup closure = null;
+  private CanonicalizationCache cache = null;
   
   /** 
    * Create an UriCanoncialization object that makes use of the given tables.
@@ -67,30 +78,90 @@ public class UriCanonicalization {
    * @param disambiguations 
    */
   public UriCanonicalization(JdbcString2StringLR interlanguage, JdbcString2StringLR redirects, JdbcString2StringLR iri2uri, JdbcString2StringLR disambiguations) {
+    this(JdbcString2StringLookup.wrap(interlanguage), 
+         JdbcString2StringLookup.wrap(redirects),
+         JdbcString2StringLookup.wrap(iri2uri), 
+         JdbcString2StringLookup.wrap(disambiguations));
+  }
+  
+  /**
+   * Create an UriCanonicalization object that makes use of the given lookup tables.
+   * This is the same as the constructor which takes the JdbcLR objects, but allows
+   * to use any implementation of the tables. Any or all of the tables may be null.
+   * 
+   * @param interlanguage
+   * @param redirects
+   * @param iri2uri
+   * @param disambiguations 
+   */
+  public UriCanonicalization(String2StringLookup interlanguage, String2StringLookup redirects, String2StringLookup iri2uri, String2StringLookup disambiguations) {
     this.interlanguage = interlanguage;
     this.redirects = redirects;
     this.iri2uri = iri2uri;
     this.disambiguations = disambiguations;
   }
   
+  /**
+   * Create an UriCanonicalization object that uses a precomputed closure table
+   * created with CanonicalizationClosure instead of the individual tables.
+   * 
+   * This gives the same results as using the tables the closure was computed 
+   * from, but needs just one lookup for each URI which is already properly
+   * recoded and at most two for all others.
+   * 
+   * @param closure 
+   */
+  public UriCanonicalization(String2StringLookup closure) {
+    this.closure = closure;
+  }
+  
+  
+  /**
+   * Use the given cache for the results of canonicalize, or no cache if null.
+   * 
+   * The same cache may be set for several UriCanonicalization objects which
+   * are used from different threads, but only if they all use the same tables.
+   * 
+   * @param cache 
+   */
+  public void setCache(CanonicalizationCache cache) {
+    this.cache = cache;
+  }
+  
+  public CanonicalizationCache getCache() {
+    return cache;
+  }
   
   public String canonicalize(String uri) {
+    if(cache != null && uri != null) {
+      return cache.canonicalize(uri, this);
+    }
+    return canonicalizeUncached(uri);
+  }
+  
+  String canonicalizeUncached(String uri) {
+    if(closure != null) {
+      return canonicalizeWithClosure(uri);
+    }
     uri = LodieUtils.shortenUri(uri);
     uri = LodieUtils.unescapeUnicode(uri);
+    return canonicalizeShortened(uri);
+  }
+  
+  // the canonicalization steps after shortening and unescaping
+  String canonicalizeShortened(String uri) {
     if(iri2uri != null) {
       String tmp = iri2uri.get(uri);
       if(tmp != null) uri = tmp;
     }    
     String uriOrig = uri;
     uri = LodieUtils.recodeUri(uri);
-    if(interlanguage != null) {
-      String tmp = interlanguage.get(uri);
-      if(tmp != null) uri = tmp;
-    }
-    if(redirects != null) {
-      String tmp = redirects.get(uri);
-      if(tmp != null) uri = tmp;
-    }
+    return canonicalizeRecoded(uri, uriOrig);
+  }
+  
+  // the canonicalization steps after recoding, uriOrig is the URI before recoding
+  String canonicalizeRecoded(String uri, String uriOrig) {
+    uri = mapFirstRound(uri);
     if(!uri.equals(uriOrig)) {
       uriOrig = uri;
       if(interlanguage != null) {
@@ -111,4 +182,181 @@ public class UriCanonicalization {
     }
     return uri;
   }
+  
+  // the first round of interlanguage and redirect mapping
+  String mapFirstRound(String uri) {
+    if(interlanguage != null) {
+      String tmp = interlanguage.get(uri);
+      if(tmp != null) uri = tmp;
+    }
+    if(redirects != null) {
+      String tmp = redirects.get(uri);
+      if(tmp != null) uri = tmp;
+    }
+    return uri;
+  }
+  
+  private String canonicalizeWithClosure(String uri) {
+    uri = LodieUtils.shortenUri(uri);
+    uri = LodieUtils.unescapeUnicode(uri);
+    String canonical = closure.get(uri);
+    if(canonical == null) {
+      // not in any of the tables, but the recoded URI may be
+      String recoded = LodieUtils.recodeUri(uri);
+      if(recoded.equals(uri)) {
+        return uri;
+      }
+      canonical = closure.get(CanonicalizationClosure.RECODED_PREFIX+recoded);
+      if(canonical == null) {
+        canonical = closure.get(recoded);
+      }
+      if(canonical == null) {
+        return recoded;
+      }
+    }
+    return CanonicalizationClosure.DISAMBIGUATION.equals(canonical) ? null : canonical;
+  }
+  
+  /**
+   * Canonicalize all the URIs in the collection.
+   * 
+   * This gives exactly the same result as calling canonicalize for each 
+   * URI, but runs each step of the canonicalization for all URIs at once:
+   * for tables which implement BatchString2StringLookup, each step is 
+   * a single getAll call for all the distinct keys, otherwise the keys
+   * are looked up one by one. URIs found in the cache, if there is one, are
+   * not looked up and the results for the others are added to the cache.
+   * 
+   * @param uris the URIs to canonicalize, none of which must be null
+   * @return a map from each distinct URI to its canonical URI, which is null
+   * for disambiguation pages. The map iterates in the order the URIs first 
+   * appeared in the collection.
+   */
+  public Map<String,String> canonicalizeAll(Collection<String> uris) {
+    Map<String,String> ret = new LinkedHashMap<String,String>(uris.size()*2);
+    if(closure != null) {
+      // this is already a single lookup per URI 
+      for(String uri : uris) {
+        if(!ret.containsKey(uri)) {
+          ret.put(uri, canonicalize(uri));
+        }
+      }
+      return ret;
+    }
+    List<String> todo = new ArrayList<String>();
+    for(String uri : new LinkedHashSet<String>(uris)) {
+      String cached = (cache == null) ? null : cache.lookup(uri);
+      if(cached != null) {
+        ret.put(uri, CanonicalizationCache.decode(cached));
+      } else {
+        // reserve the position in the result map
+        ret.put(uri, null);
+        todo.add(uri);
+      }
+    }
+    int n = todo.size();
+    if(n == 0) {
+      return ret;
+    }
+    String[] current = new String[n];
+    for(int i=0; i<n; i++) {
+      current[i] = LodieUtils.unescapeUnicode(LodieUtils.shortenUri(todo.get(i)));
+    }
+    replaceAll(iri2uri, current, null);
+    String[] uriOrig = current.clone();
+    for(int i=0; i<n; i++) {
+      current[i] = LodieUtils.recodeUri(current[i]);
+    }
+    replaceAll(interlanguage, current, null);
+    replaceAll(redirects, current, null);
+    // second round of interlanguage and redirects only for those which changed
+    // after recoding, and redirects only for those changed by interlanguage
+    boolean[] changed = new boolean[n];
+    for(int i=0; i<n; i++) {
+      changed[i] = !current[i].equals(uriOrig[i]);
+    }
+    if(interlanguage != null) {
+      String[] before = current.clone();
+      replaceAll(interlanguage, current, changed);
+      for(int i=0; i<n; i++) {
+        changed[i] = changed[i] && !before[i].equals(current[i]);
+      }
+      replaceAll(redirects, current, changed);
+    }
+    if(disambiguations != null) {
+      Set<String> found = containsAll(disambiguations, current);
+      for(int i=0; i<n; i++) {
+        if(found.contains(current[i])) {
+          current[i] = null;
+        }
+      }
+    }
+    for(int i=0; i<n; i++) {
+      ret.put(todo.get(i), current[i]);
+      if(cache != null) {
+        cache.put(todo.get(i), current[i]);
+      }
+    }
+    return ret;
+  }
+  
+  // Replace each of the strings where which[i] is true (or all of them if which is null)
+  // by the value in the table, if there is one. 
+  private static void replaceAll(String2StringLookup table, String[] strings, boolean[] which) {
+    if(table == null) {
+      return;
+    }
+    if(table instanceof BatchString2StringLookup) {
+      List<String> keys = new ArrayList<String>(strings.length);
+      for(int i=0; i<strings.length; i++) {
+        if(which == null || which[i]) {
+          keys.add(strings[i]);
+        }
+      }
+      if(keys.isEmpty()) {
+        return;
+      }
+      Map<String,String> values = ((BatchString2StringLookup)table).getAll(keys);
+      for(int i=0; i<strings.length; i++) {
+        if(which == null || which[i]) {
+          String tmp = values.get(strings[i]);
+          if(tmp != null) strings[i] = tmp;
+        }
+      }
+    } else {
+      // still look up each distinct key only once
+      Map<String,String> values = new HashMap<String,String>();
+      for(int i=0; i<strings.length; i++) {
+        if(which == null || which[i]) {
+          String key = strings[i];
+          String tmp;
+          if(values.containsKey(key)) {
+            tmp = values.get(key);
+          } else {
+            tmp = table.get(key);
+            values.put(key, tmp);
+          }
+          if(tmp != null) strings[i] = tmp;
+        }
+      }
+    }
+  }
+  
+  // Return the set of those strings which are in the table.
+  private static Set<String> containsAll(String2StringLookup table, String[] strings) {
+    Set<String> distinct = new LinkedHashSet<String>(strings.length*2);
+    for(String s : strings) {
+      distinct.add(s);
+    }
+    if(table instanceof BatchString2StringLookup) {
+      return ((BatchString2StringLookup)table).getAll(distinct).keySet();
+    }
+    Set<String> ret = new HashSet<String>();
+    for(String s : distinct) {
+      if(table.contains(s)) {
+        ret.add(s);
+      }
+    }
+    return ret;
+  }
 }
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.pr;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.Factory;
+import gate.FeatureMap;
+import gate.ProcessingResource;
+import gate.Utils;
+import gate.creole.AbstractLanguageAnalyser;
+import gate.creole.ExecutionException;
+import gate.creole.metadata.CreoleParameter;
+import gate.creole.metadata.Optional;
+import gate.creole.metadata.RunTime;
+import gate.util.GateRuntimeException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Logger;
+
+/**
+ * Base class for the PRs which create a Mention for each LookupList by 
+ * choosing the best of its candidates.
+ * 
+ * Subclasses only implement choosing the best candidate for a list, 
+ * everything else, including how the Mention or NIL annotation gets created,
+ * is the same as in the disambiguation-simple scripts.
+ * <p>
+ * If a document has more than parallelThreshold LookupLists, the best 
+ * candidates are chosen by several threads, each taking a contiguous slice
+ * of the lists. The annotations are then still added by the calling thread
+ * one after the other, in the same order as without threads, so the result
+ * is exactly the same no matter if and how many threads are used.
+ * The threads only read the document, so nothing else must change the 
+ * document while the PR runs.
+ */
+public abstract class AbstractDisambiguationPR extends AbstractLanguageAnalyser 
+  implements ProcessingResource
+{
+  private static final long serialVersionUID = 1L;
+  
+  //****************************
+  // PARAMETERS
+  //****************************
+  
+  public String inputASName;
+  @CreoleParameter(comment="Annotation set containing the LookupList and Lookup annotations",defaultValue="")
+  @RunTime
+  @Optional  
+  public void setInputASName(String value) { inputASName = value; }
+  public String getInputASName() { return inputASName; }
+  
+  public String outputASName;
+  @CreoleParameter(comment="Annotation set where the Mention annotations get created",defaultValue="")
+  @RunTime
+  @Optional  
+  public void setOutputASName(String value) { outputASName = value; }
+  public String getOutputASName() { return outputASName; }
+  
+  public Integer parallelThreshold;
+  @CreoleParameter(comment="Use several threads for documents with more LookupLists than this, 0 to never use threads",defaultValue="0")
+  @RunTime
+  @Optional  
+  public void setParallelThreshold(Integer value) { parallelThreshold = value; }
+  public Integer getParallelThreshold() { return parallelThreshold; }
+  
+  public Integer parallelThreads;
+  @CreoleParameter(comment="Number of threads to use, 0 for the number of available processors",defaultValue="0")
+  @RunTime
+  @Optional  
+  public void setParallelThreads(Integer value) { parallelThreads = value; }
+  public Integer getParallelThreads() { return parallelThreads; }
+  
+  // *******************************************
+  // CLASS FIELDS
+  // *******************************************
+  
+  protected static final Logger logger = Logger
+          .getLogger(AbstractDisambiguationPR.class);
+  
+  protected double minScore = 0.0;
+  protected boolean createNilMentions = false;
+  
+  private ExecutorService executor = null;
+  private int executorThreads = 0;
+  
+  /**
+   * The result of choosing the best candidate for a list: the feature map of
+   * the best candidate or null if there is none, and if it is a NIL because
+   * its score is below the minimum score.
+   */
+  protected static class Choice {
+    final FeatureMap bestFm;
+    final boolean isNull;
+    public Choice(FeatureMap bestFm, boolean isNull) {
+      this.bestFm = bestFm;
+      this.isNull = isNull;
+    }
+  }
+  
+  /**
+   * Choose the best candidate for the list annotation.
+   * 
+   * This is called from several threads at the same time if the PR runs in
+   * parallel mode, so it must not change anything and must not use any 
+   * mutable state that is shared between threads.
+   * @param inputAS
+   * @param listAnn
+   * @return 
+   */
+  protected abstract Choice choose(AnnotationSet inputAS, Annotation listAnn);
+  
+  //***********************************************************************
+  // EXECUTE
+  //***********************************************************************
+  
+  @Override
+  public void execute() throws ExecutionException {
+    AnnotationSet inputAS = document.getAnnotations(getInputASName());
+    AnnotationSet outputAS = document.getAnnotations(getOutputASName());
+    List<Annotation> lists = new ArrayList<Annotation>(inputAS.get("LookupList"));
+    int threshold = (getParallelThreshold() == null) ? 0 : getParallelThreshold();
+    if(threshold <= 0 || lists.size() <= threshold) {
+      for(Annotation listAnn : lists) {
+        addMention(outputAS, listAnn, choose(inputAS, listAnn));
+      }
+    } else {
+      Choice[] choices = chooseParallel(inputAS, lists);
+      for(int i=0; i<choices.length; i++) {
+        addMention(outputAS, lists.get(i), choices[i]);
+      }
+    }
+  }
+  
+  private Choice[] chooseParallel(final AnnotationSet inputAS, final List<Annotation> lists) 
+          throws ExecutionException {
+    final Choice[] choices = new Choice[lists.size()];
+    int nthreads = getExecutor();
+    // a few more slices than threads so that slow slices do not hold up the rest
+    int nslices = Math.min(lists.size(), nthreads*4);
+    List<Future<?>> futures = new ArrayList<Future<?>>(nslices);
+    for(int s=0; s<nslices; s++) {
+      final int from = (int)((long)lists.size()*s/nslices);
+      final int to = (int)((long)lists.size()*(s+1)/nslices);
+      futures.add(executor.submit(new Callable<Object>() {
+        @Override
+        public Object call() {
+          for(int i=from; i<to; i++) {
+            choices[i] = choose(inputAS, lists.get(i));
+          }
+          return null;
+        }
+      }));
+    }
+    try {
+      for(Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ExecutionException("Interrupted while choosing the candidates", ex);
+    } catch (java.util.concurrent.ExecutionException ex) {
+      if(ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException)ex.getCause();
+      }
+      throw new GateRuntimeException("Error while choosing the candidates", ex.getCause());
+    }
+    return choices;
+  }
+  
+  // create the executor if needed and return the number of threads it uses
+  private synchronized int getExecutor() {
+    int nthreads = (getParallelThreads() == null || getParallelThreads() <= 0) ?
+            Runtime.getRuntime().availableProcessors() : getParallelThreads();
+    if(executor != null && executorThreads != nthreads) {
+      executor.shutdown();
+      executor = null;
+    }
+    if(executor == null) {
+      final String name = getClass().getSimpleName();
+      final AtomicInteger count = new AtomicInteger();
+      executor = Executors.newFixedThreadPool(nthreads, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, name+"-"+count.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        }
+      });
+      executorThreads = nthreads;
+    }
+    return nthreads;
+  }
+  
+  /**
+   * Add the Mention or NIL annotation for the choice made for the list.
+   */
+  protected void addMention(AnnotationSet outputAS, Annotation listAnn, Choice choice) {
+    FeatureMap bestFm = choice.bestFm;
+    if(choice.isNull || bestFm == null) {
+      // we have to create a Mention annotation which is a Nil or 
+      // a NilMention annotation (if we do not want explicit NIL Mention annotations)
+      String type="Mention";
+      if(createNilMentions) {
+        type = "NilMention";
+      }
+      FeatureMap newFm = Factory.newFeatureMap();
+      if(bestFm == null) {
+        newFm.put("inst","");
+        newFm.put("nilReason","nothing found"); 
+      } else {
+        newFm.putAll(bestFm);
+        newFm.put("bestInst",newFm.get("inst"));
+        newFm.put("inst","");
+        newFm.put("nilThreshold",minScore);
+        newFm.put("nilReason","score<minscore");
+      }
+      Utils.addAnn(outputAS,listAnn,type,newFm);
+    } else {
+      Utils.addAnn(outputAS,listAnn,"Mention",Utils.toFeatureMap(bestFm));
+    }
+  }
+  
+  /**
+   * Read the minScore and createNilMentions properties with the given prefix.
+   */
+  protected void initNilProperties(String prefix) {
+    String minScoreString = System.getProperty(prefix+"minScore");
+    if(minScoreString != null) {
+      try {
+        minScore = Double.parseDouble(minScoreString);
+        logger.info("Using minScore="+minScore);
+      } catch (Exception ex) {
+        throw new GateRuntimeException("Problem converting the minScore setting: "+minScoreString,ex);
+      }
+    }
+    String createNilMentionsString = System.getProperty(prefix+"createNilMentions");
+    if(createNilMentionsString != null) {
+      if(createNilMentionsString.trim().toLowerCase().equals("false")) {
+        createNilMentions = false;
+      } else if(createNilMentionsString.trim().toLowerCase().equals("true")) {
+        createNilMentions = true;      
+      } else {
+        throw new GateRuntimeException("Property createNilMentions is neither 'true' nor 'false': "+createNilMentionsString);
+      }
+    }
+    logger.info("Creating explicit NIL mentions: "+createNilMentions);
+  }
+  
+  @Override
+  public synchronized void cleanup() {
+    if(executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+    super.cleanup();
+  }
+  
+}
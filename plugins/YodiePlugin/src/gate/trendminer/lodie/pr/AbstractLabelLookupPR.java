@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.pr;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.Document;
+import gate.FeatureMap;
+import gate.ProcessingResource;
+import gate.Resource;
+import gate.Utils;
+import gate.creole.AbstractLanguageAnalyser;
+import gate.creole.ResourceInstantiationException;
+import gate.creole.metadata.CreoleParameter;
+import gate.creole.metadata.Optional;
+import gate.creole.metadata.RunTime;
+import gate.miscutils.FieldProjection;
+import gate.trendminer.lodie.utils.CandidateFilter;
+import gate.trendminer.lodie.utils.LabelInfoCache;
+import gate.trendminer.lodie.utils.LodieUtils;
+import gate.util.GateRuntimeException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Base class for the PRs which look up the candidates for the labels of a 
+ * document.
+ * 
+ * These create the same annotations as the JdbcJsonLookup PR of the 
+ * lookupinfo pipeline: for each input annotation, the value of its key 
+ * feature is looked up, which gives a list of rows, one for each candidate.
+ * For each row an annotation of the output type is created which has all 
+ * the features of the input annotation plus the fields of the row, and a 
+ * list annotation which has the features of the input annotation and the ids 
+ * of all the candidate annotations in the "ids" feature. Each candidate 
+ * annotation has the id of its list annotation in the "llId" feature.
+ * <p>
+ * If a projection is given, the rows only have the fields listed in it, 
+ * converted to the given types (see gate.miscutils.FieldProjection), and
+ * subclasses only decode those fields. The projection should list all the
+ * fields used by the rest of the pipeline, for example
+ * <pre>
+ * inst:string PREF:string STY:string TUI:string CUIVOCABS:string 
+ * LABELVOCABS:string scMeshFreq:int scPageRank:double
+ * </pre>
+ * where scMeshFreq:int does what correct-null-features.jape does.
+ * <p>
+ * If vocabularies or semanticTypes are set, candidates which do not pass
+ * the CandidateFilter for them are not created at all. With vocabularies,
+ * this gives the same result as running subsetByVocab.java right after the
+ * lookup, except that nothing is put into the deleted-vocabs set. With 
+ * semanticTypes, the candidates of other types do not take part in 
+ * disambiguation at all, while type-filter.java only removes the Mentions
+ * of other types at the very end, so a Mention whose best candidate has 
+ * another type gets the best candidate of the wanted types instead of 
+ * being removed.
+ * <p>
+ * Subclasses implement looking up the rows for all the distinct keys 
+ * of a document at once and must call super.init() when overriding init().
+ */
+public abstract class AbstractLabelLookupPR extends AbstractLanguageAnalyser 
+  implements ProcessingResource
+{
+  private static final long serialVersionUID = 1L;
+  
+  //****************************
+  // PARAMETERS
+  //****************************
+  
+  public List<String> projection;
+  @CreoleParameter(comment="The fields of the candidate rows to keep, each as name:type with type one of string, int, long, double, boolean, object; all fields if empty",defaultValue="")
+  @Optional
+  public void setProjection(List<String> value) { projection = value; }
+  public List<String> getProjection() { return projection; }
+  
+  public String inputAnnotationSet;
+  @CreoleParameter(comment="The input annotation set",defaultValue="Gazetteer")
+  @RunTime
+  @Optional  
+  public void setInputAnnotationSet(String value) { inputAnnotationSet = value; }
+  public String getInputAnnotationSet() { return inputAnnotationSet; }
+  
+  public String inputAnnotationType;
+  @CreoleParameter(comment="The type of the annotations to look up",defaultValue="Lookup")
+  @RunTime
+  @Optional  
+  public void setInputAnnotationType(String value) { inputAnnotationType = value; }
+  public String getInputAnnotationType() { return inputAnnotationType; }
+  
+  public String keyFeature;
+  @CreoleParameter(comment="The feature which contains the label to look up, the document text if empty",defaultValue="string")
+  @RunTime
+  @Optional  
+  public void setKeyFeature(String value) { keyFeature = value; }
+  public String getKeyFeature() { return keyFeature; }
+  
+  public String outputAnnotationSet;
+  @CreoleParameter(comment="The output annotation set",defaultValue="")
+  @RunTime
+  @Optional  
+  public void setOutputAnnotationSet(String value) { outputAnnotationSet = value; }
+  public String getOutputAnnotationSet() { return outputAnnotationSet; }
+  
+  public String outputAnnotationType;
+  @CreoleParameter(comment="The type of the candidate annotations",defaultValue="Lookup")
+  @RunTime
+  @Optional  
+  public void setOutputAnnotationType(String value) { outputAnnotationType = value; }
+  public String getOutputAnnotationType() { return outputAnnotationType; }
+  
+  public String listAnnotationType;
+  @CreoleParameter(comment="The type of the list annotations",defaultValue="LookupList")
+  @RunTime
+  @Optional  
+  public void setListAnnotationType(String value) { listAnnotationType = value; }
+  public String getListAnnotationType() { return listAnnotationType; }
+  
+  public String vocabularies;
+  @CreoleParameter(comment="If not empty, only create candidates from one of these semicolon separated vocabularies, like VOCABS for subsetByVocab",defaultValue="")
+  @RunTime
+  @Optional  
+  public void setVocabularies(String value) { vocabularies = value; }
+  public String getVocabularies() { return vocabularies; }
+  
+  public String semanticTypes;
+  @CreoleParameter(comment="If not empty, only create candidates whose STY contains one of these semicolon separated types, like the type list of type-filter",defaultValue="")
+  @RunTime
+  @Optional  
+  public void setSemanticTypes(String value) { semanticTypes = value; }
+  public String getSemanticTypes() { return semanticTypes; }
+  
+  // *******************************************
+  // CLASS FIELDS
+  // *******************************************
+  
+  private FieldProjection fieldProjection = null;
+  private CandidateFilter filter = null;
+  private String filterVocabularies = null;
+  private String filterTypes = null;
+  
+  @Override
+  public Resource init() throws ResourceInstantiationException {
+    try {
+      fieldProjection = FieldProjection.of(getProjection());
+    } catch (GateRuntimeException ex) {
+      throw new ResourceInstantiationException("Invalid projection "+getProjection(), ex);
+    }
+    return this;
+  }
+  
+  /**
+   * The projection to apply to the rows, or null if all fields are kept.
+   * @return 
+   */
+  protected FieldProjection getFieldProjection() {
+    return fieldProjection;
+  }
+  
+  //***********************************************************************
+  // EXECUTE
+  //***********************************************************************
+  
+  @Override
+  public void execute() {
+    Document doc = getDocument();
+    AnnotationSet inputAS = doc.getAnnotations(getInputAnnotationSet());
+    AnnotationSet outputAS = doc.getAnnotations(getOutputAnnotationSet());
+    List<Annotation> anns = Utils.inDocumentOrder(inputAS.get(getInputAnnotationType()));
+    String[] keys = new String[anns.size()];
+    Set<String> distinct = new LinkedHashSet<String>();
+    for(int i=0; i<keys.length; i++) {
+      keys[i] = keyFor(doc, anns.get(i));
+      if(keys[i] != null) {
+        distinct.add(keys[i]);
+      }
+    }
+    Map<String,List<Map<String,Object>>> rows = lookupAll(distinct);
+    CandidateFilter filter = getFilter();
+    if(filter != null) {
+      // once for each distinct key, not for each annotation
+      for(Map.Entry<String,List<Map<String,Object>>> e : rows.entrySet()) {
+        e.setValue(filter.filter(e.getValue()));
+      }
+    }
+    boolean haveList = getListAnnotationType() != null && !getListAnnotationType().isEmpty();
+    for(int i=0; i<keys.length; i++) {
+      List<Map<String,Object>> cands = (keys[i] == null) ? null : rows.get(keys[i]);
+      if(cands == null || cands.isEmpty()) {
+        continue;
+      }
+      Annotation ann = anns.get(i);
+      List<Integer> ids = new ArrayList<Integer>(cands.size());
+      Integer llId = null;
+      if(haveList) {
+        FeatureMap lfm = Utils.toFeatureMap(ann.getFeatures());
+        lfm.put(LodieUtils.IDS, ids);
+        llId = Utils.addAnn(outputAS, ann, getListAnnotationType(), lfm);
+      }
+      for(Map<String,Object> row : cands) {
+        FeatureMap fm = Utils.toFeatureMap(ann.getFeatures());
+        // the rows may be cached, so every annotation gets its own copy of
+        // nested lists and maps
+        for(Map.Entry<String,Object> e : row.entrySet()) {
+          fm.put(e.getKey(), LabelInfoCache.copy(e.getValue()));
+        }
+        if(llId != null) {
+          fm.put(LodieUtils.LLID, llId);
+        }
+        ids.add(Utils.addAnn(outputAS, ann, getOutputAnnotationType(), fm));
+      }
+    }
+  }
+  
+  // the filter for the current parameters, or null if nothing gets filtered
+  private CandidateFilter getFilter() {
+    String v = getVocabularies() == null ? "" : getVocabularies();
+    String t = getSemanticTypes() == null ? "" : getSemanticTypes();
+    if(v.isEmpty() && t.isEmpty()) {
+      return null;
+    }
+    if(filter == null || !v.equals(filterVocabularies) || !t.equals(filterTypes)) {
+      filter = new CandidateFilter(v, t);
+      filterVocabularies = v;
+      filterTypes = t;
+    }
+    return filter;
+  }
+  
+  protected String keyFor(Document doc, Annotation ann) {
+    if(getKeyFeature() == null || getKeyFeature().isEmpty()) {
+      return Utils.stringFor(doc, ann);
+    }
+    Object value = ann.getFeatures().get(getKeyFeature());
+    return (value == null) ? null : value.toString();
+  }
+  
+  /**
+   * Look up the candidate rows for all the distinct keys. Keys which are not 
+   * found are not in the returned map or map to an empty list. The rows are 
+   * only read, but the values of the returned map may get replaced.
+   * @param keys
+   * @return 
+   */
+  protected abstract Map<String,List<Map<String,Object>>> lookupAll(Collection<String> keys);
+  
+}
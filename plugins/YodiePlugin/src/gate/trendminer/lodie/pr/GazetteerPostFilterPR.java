@@ -0,0 +1,376 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.pr;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.Document;
+import gate.ProcessingResource;
+import gate.Resource;
+import gate.Utils;
+import gate.creole.AbstractLanguageAnalyser;
+import gate.creole.ResourceInstantiationException;
+import gate.creole.metadata.CreoleParameter;
+import gate.creole.metadata.CreoleResource;
+import gate.creole.metadata.Optional;
+import gate.creole.metadata.RunTime;
+import gate.trendminer.lodie.utils.AnnotationIndexService;
+import gate.trendminer.lodie.utils.AnnotationTypeIndex;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.Logger;
+
+/**
+ * Removes unwanted Lookup annotations after the gazetteer in one PR.
+ * 
+ * This does what the JAPE grammars removeStopWords, removeContainedLookups
+ * and removeLookupsUnderDateAddressForBio of the gazetteer-postproc pipeline
+ * do when run in this order, with the same results:
+ * <ul>
+ * <li>Lookups which are coextensive with a stopword or where the first 
+ * coextensive Token has kind=number are moved to the output set
+ * <li>then, going through the Lookups from left to right like an appelt 
+ * grammar, all Lookups contained in or coextensive with the longest Lookup
+ * at a position are removed and copied to the output set with
+ * deletedBecause=LookupWithinLookup
+ * <li>then, again like an appelt grammar, all Lookups in the date/address 
+ * lookup set which overlap with an Address or Date annotation are removed 
+ * and copied to the date/address output set with 
+ * deletedBecause=overlapswWithAddressOrDate
+ * </ul>
+ * If a stopword list is given, stopwords are checked with a hash set of
+ * the (case-folded) entries of the list against the Tokens that make up 
+ * the Lookup, matching the way the stopword gazetteer creates Stopword 
+ * annotations: only whole words, only the longest match, and no match 
+ * across a Split annotation (splitAnnotationType, in the default set like
+ * the Tokens). Otherwise the Stopword annotations in the input set are used.
+ */
+@CreoleResource(name = "GazetteerPostFilter",
+        comment = "Remove stopword, contained and date/address Lookups in one PR.",
+        helpURL="")
+public class GazetteerPostFilterPR extends AbstractLanguageAnalyser 
+  implements ProcessingResource
+{
+  private static final long serialVersionUID = 1L;
+  
+  //****************************
+  // PARAMETERS
+  //****************************
+  
+  public URL stopwordListURL;
+  @CreoleParameter(comment="Stopword gazetteer list to use instead of Stopword annotations",defaultValue="")
+  @Optional  
+  public void setStopwordListURL(URL value) { stopwordListURL = value; }
+  public URL getStopwordListURL() { return stopwordListURL; }
+  
+  public String inputASName;
+  @CreoleParameter(comment="Annotation set containing the Lookup and Stopword annotations",defaultValue="Gazetteer")
+  @RunTime
+  @Optional  
+  public void setInputASName(String value) { inputASName = value; }
+  public String getInputASName() { return inputASName; }
+  
+  public String splitAnnotationType;
+  @CreoleParameter(comment="Annotation type which a stopword from the stopword list cannot cross, as for the stopword gazetteer",defaultValue="Split")
+  @RunTime
+  @Optional  
+  public void setSplitAnnotationType(String value) { splitAnnotationType = value; }
+  public String getSplitAnnotationType() { return splitAnnotationType; }
+  
+  public String outputASName;
+  @CreoleParameter(comment="Annotation set where the stopword and contained Lookups get stored",defaultValue="DEBUG_removeLookups")
+  @RunTime
+  @Optional  
+  public void setOutputASName(String value) { outputASName = value; }
+  public String getOutputASName() { return outputASName; }
+  
+  public String dateAddressASName;
+  @CreoleParameter(comment="Annotation set containing the Address and Date annotations",defaultValue="")
+  @RunTime
+  @Optional  
+  public void setDateAddressASName(String value) { dateAddressASName = value; }
+  public String getDateAddressASName() { return dateAddressASName; }
+  
+  public String dateAddressLookupASName;
+  @CreoleParameter(comment="Annotation set containing the Lookups to remove if they overlap with an Address or Date",defaultValue="GazetteerEN")
+  @RunTime
+  @Optional  
+  public void setDateAddressLookupASName(String value) { dateAddressLookupASName = value; }
+  public String getDateAddressLookupASName() { return dateAddressLookupASName; }
+  
+  public String dateAddressOutputASName;
+  @CreoleParameter(comment="Annotation set where the Lookups overlapping with an Address or Date get stored",defaultValue="")
+  @RunTime
+  @Optional  
+  public void setDateAddressOutputASName(String value) { dateAddressOutputASName = value; }
+  public String getDateAddressOutputASName() { return dateAddressOutputASName; }
+  
+  // *******************************************
+  // CLASS FIELDS
+  // *******************************************
+  
+  protected static final Logger logger = Logger
+          .getLogger(GazetteerPostFilterPR.class);
+  
+  // the normalized stopwords and all the word prefixes of multi word stopwords,
+  // null if the Stopword annotations are used
+  private Set<String> stopwords = null;
+  private Set<String> stopwordPrefixes = null;
+  
+  @Override
+  public Resource init() throws ResourceInstantiationException {
+    if(getStopwordListURL() != null) {
+      stopwords = new HashSet<String>();
+      stopwordPrefixes = new HashSet<String>();
+      BufferedReader in = null;
+      try {
+        in = new BufferedReader(new InputStreamReader(getStopwordListURL().openStream(), "UTF-8"));
+        String line;
+        while((line = in.readLine()) != null) {
+          String[] words = line.trim().toLowerCase(Locale.ENGLISH).split("\\s+");
+          if(words[0].isEmpty()) {
+            continue;
+          }
+          StringBuilder sb = new StringBuilder(words[0]);
+          for(int i=1; i<words.length; i++) {
+            stopwordPrefixes.add(sb.toString());
+            sb.append(' ').append(words[i]);
+          }
+          stopwords.add(sb.toString());
+        }
+      } catch (IOException ex) {
+        throw new ResourceInstantiationException("Could not read stopword list "+getStopwordListURL(),ex);
+      } finally {
+        if(in != null) {
+          try { in.close(); } catch (IOException ex) { }
+        }
+      }
+      logger.info("Loaded "+stopwords.size()+" stopwords from "+getStopwordListURL());
+    }
+    return this;
+  }
+  
+  //***********************************************************************
+  // EXECUTE
+  //***********************************************************************
+  
+  @Override
+  public void execute() {
+    Document doc = getDocument();
+    AnnotationSet inputAS = doc.getAnnotations(getInputASName());
+    AnnotationSet outputAS = doc.getAnnotations(getOutputASName());
+    AnnotationIndexService indexes = AnnotationIndexService.forDocument(doc);
+    AnnotationTypeIndex tokens = indexes.getIndex(doc, "", "Token");
+    AnnotationTypeIndex stops = (stopwords == null) ? indexes.getIndex(inputAS, "Stopword") : null;
+    AnnotationTypeIndex splits = null;
+    if(stopwords != null && getSplitAnnotationType() != null && !getSplitAnnotationType().isEmpty()) {
+      splits = indexes.getIndex(doc, "", getSplitAnnotationType());
+    }
+    
+    // JAPE never matches zero length annotations, but they still get removed 
+    // if they are within a longer Lookup
+    List<Annotation> lookups = Utils.inDocumentOrder(inputAS.get("Lookup"));
+    int n = lookups.size();
+    long[] starts = new long[n];
+    long[] ends = new long[n];
+    boolean[] removed = new boolean[n];
+    for(int i=0; i<n; i++) {
+      Annotation lookup = lookups.get(i);
+      starts[i] = Utils.start(lookup);
+      ends[i] = Utils.end(lookup);
+      if(starts[i] == ends[i]) {
+        continue;
+      }
+      if(isStopword(doc, tokens, splits, stops, starts[i], ends[i]) || isNumber(tokens, starts[i], ends[i])) {
+        outputAS.add(lookup);
+        inputAS.remove(lookup);
+        removed[i] = true;
+      }
+    }
+    
+    // appelt: the longest Lookup at a position wins, then continue after its end.
+    // Of several equally long ones, JAPE keeps the one which comes first when
+    // iterating over the Lookups in the set, so we need that order too.
+    Map<Integer,Integer> iterationOrder = new HashMap<Integer,Integer>();
+    for(Annotation lookup : inputAS.get("Lookup")) {
+      iterationOrder.put(lookup.getId(), iterationOrder.size());
+    }
+    int[] order = new int[n];
+    for(int i=0; i<n; i++) {
+      if(!removed[i]) {
+        order[i] = iterationOrder.get(lookups.get(i).getId());
+      }
+    }
+    long nextStart = Long.MIN_VALUE;
+    int i = 0;
+    while(i < n) {
+      // find the longest remaining Lookup starting here
+      long start = starts[i];
+      int longest = -1;
+      int j = i;
+      for(; j < n && starts[j] == start; j++) {
+        if(!removed[j] && ends[j] > start && (longest < 0 || ends[j] > ends[longest] ||
+             (ends[j] == ends[longest] && order[j] < order[longest]))) {
+          longest = j;
+        }
+      }
+      if(longest < 0 || start < nextStart) {
+        i = j;
+        continue;
+      }
+      long end = ends[longest];
+      for(int k = i; k < n && starts[k] < end; k++) {
+        if(k != longest && !removed[k] && ends[k] <= end) {
+          Annotation contained = lookups.get(k);
+          outputAS.get(Utils.addAnn(outputAS,contained,contained.getType(),contained.getFeatures())).
+            getFeatures().put("deletedBecause","LookupWithinLookup");
+          inputAS.remove(contained);
+          removed[k] = true;
+        }
+      }
+      nextStart = end;
+      i = j;
+    }
+    
+    removeUnderDateAddress(doc, indexes);
+  }
+  
+  // true if the stopword gazetteer would have created a Stopword annotation
+  // coextensive with the span
+  private boolean isStopword(Document doc, AnnotationTypeIndex tokens, 
+          AnnotationTypeIndex splits, AnnotationTypeIndex stops, long start, long end) {
+    if(stops != null) {
+      return stops.hasCoextensive(start, end);
+    }
+    // the gazetteer only matches whole words, i.e. the span must start with
+    // the first and end with the last Token within it
+    List<Annotation> words = tokens.getContained(start, end);
+    if(words.isEmpty() || Utils.start(words.get(0)) != start || 
+       Utils.end(words.get(words.size()-1)) != end) {
+      return false;
+    }
+    StringBuilder sb = new StringBuilder();
+    long prevEnd = -1;
+    for(Annotation word : words) {
+      if(sb.length() > 0) { 
+        // the gazetteer does not match across a split
+        if(hasSplitBetween(splits, prevEnd, Utils.end(word))) {
+          return false;
+        }
+        sb.append(' '); 
+      }
+      sb.append(Utils.stringFor(doc, word).toLowerCase(Locale.ENGLISH));
+      prevEnd = Utils.end(word);
+    }
+    if(!stopwords.contains(sb.toString())) {
+      return false;
+    }
+    // the gazetteer only keeps the longest match starting at a Token, so 
+    // there is no Stopword here if a longer one starts at the same place
+    if(!stopwordPrefixes.contains(sb.toString())) {
+      return true;
+    }
+    long from = end;
+    while(true) {
+      List<Annotation> following = tokens.getFollowing(from, 1);
+      if(following.isEmpty()) {
+        return true;
+      }
+      Annotation next = following.get(0);
+      // a longer match cannot continue across a split
+      if(hasSplitBetween(splits, from, Utils.end(next))) {
+        return true;
+      }
+      sb.append(' ').append(Utils.stringFor(doc, next).toLowerCase(Locale.ENGLISH));
+      String key = sb.toString();
+      if(stopwords.contains(key)) {
+        return false;
+      }
+      if(!stopwordPrefixes.contains(key)) {
+        return true;
+      }
+      from = Utils.end(next);
+    }
+  }
+  
+  // true if a split starts after the end of one token and before the end
+  // of the next one, i.e. in the space between them or at the next token
+  private static boolean hasSplitBetween(AnnotationTypeIndex splits, long prevEnd, long nextEnd) {
+    if(splits == null) {
+      return false;
+    }
+    for(Annotation split : splits.getOverlapping(prevEnd, nextEnd)) {
+      if(Utils.start(split) >= prevEnd) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  private static boolean isNumber(AnnotationTypeIndex tokens, long start, long end) {
+    List<Annotation> coextensive = tokens.getCoextensive(start, end);
+    if(coextensive.isEmpty()) {
+      return false;
+    }
+    Object kind = coextensive.get(0).getFeatures().get("kind");
+    return kind != null && kind.toString().equals("number");
+  }
+  
+  private void removeUnderDateAddress(Document doc, AnnotationIndexService indexes) {
+    AnnotationSet outputAS = doc.getAnnotations(getDateAddressOutputASName());
+    AnnotationSet lookupAS = doc.getAnnotations(getDateAddressLookupASName());
+    Set<String> types = new HashSet<String>();
+    types.add("Address");
+    types.add("Date");
+    List<Annotation> dateAddresses = Utils.inDocumentOrder(
+            doc.getAnnotations(getDateAddressASName()).get(types));
+    long nextStart = Long.MIN_VALUE;
+    int i = 0;
+    int n = dateAddresses.size();
+    while(i < n) {
+      long start = Utils.start(dateAddresses.get(i));
+      long end = start;
+      for(; i < n && Utils.start(dateAddresses.get(i)) == start; i++) {
+        end = Math.max(end, Utils.end(dateAddresses.get(i)));
+      }
+      if(end == start || start < nextStart) {
+        continue;
+      }
+      List<Annotation> overlapping = new ArrayList<Annotation>(
+              indexes.getIndex(lookupAS, "Lookup").getOverlapping(start, end));
+      for(Annotation aLookup : overlapping) {
+        outputAS.get(Utils.addAnn(outputAS,aLookup,aLookup.getType(),aLookup.getFeatures())).
+          getFeatures().put("deletedBecause","overlapswWithAddressOrDate");
+        lookupAS.remove(aLookup);
+      }
+      nextStart = end;
+    }
+  }
+  
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.pr;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.Document;
+import gate.FeatureMap;
+import gate.ProcessingResource;
+import gate.Utils;
+import gate.creole.AbstractLanguageAnalyser;
+import gate.creole.metadata.CreoleParameter;
+import gate.creole.metadata.CreoleResource;
+import gate.creole.metadata.Optional;
+import gate.creole.metadata.RunTime;
+import gate.trendminer.lodie.utils.AnnotationIndexService;
+import gate.trendminer.lodie.utils.AnnotationTypeIndex;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.log4j.Logger;
+
+/**
+ * Post-processes the Lookup annotations created by the gazetteer in one pass.
+ * 
+ * This does what the JAPE grammars filterLookups, createQueryFeature and 
+ * postProcessLookups of the gazetteer-en pipeline do when run one after
+ * the other, with the same results, but goes over the Lookup annotations 
+ * only once, in document order:
+ * <ul>
+ * <li>if filterLookups is true, Lookups which are not within a Sentence, 
+ * which are only one character long, or which do not contain a Token
+ * that is a proper noun (unless the document feature deleteNonNNPLookups
+ * is "false") are removed and copied to the output set with the feature
+ * deletedBecause set to notInSentence, length=1 or noNNPorNNPS
+ * <li>the query feature is set to the abbreviationOf feature or the
+ * cleaned document text, lower-cased if minorType is "uncased"
+ * <li>the string_orig and string features are set and the features 
+ * _firstcharCategory, _firstcharUpper, _listnr and _string are removed 
+ * </ul>
+ * The Sentence and Token annotations are looked up in the default set 
+ * through the shared AnnotationIndexService. 
+ */
+@CreoleResource(name = "GazetteerPostMatch",
+        comment = "Filter and post-process gazetteer Lookup annotations in one pass.",
+        helpURL="")
+public class GazetteerPostMatchPR extends AbstractLanguageAnalyser 
+  implements ProcessingResource
+{
+  private static final long serialVersionUID = 1L;
+  
+  //****************************
+  // PARAMETERS
+  //****************************
+  
+  public String inputASName;
+  @CreoleParameter(comment="Annotation set containing the Lookup annotations",defaultValue="Gazetteer")
+  @RunTime
+  @Optional  
+  public void setInputASName(String value) { inputASName = value; }
+  public String getInputASName() { return inputASName; }
+  
+  public String outputASName;
+  @CreoleParameter(comment="Annotation set where copies of the removed Lookups get stored (default annotation set if left empty)",defaultValue="")
+  @RunTime
+  @Optional  
+  public void setOutputASName(String value) { outputASName = value; }
+  public String getOutputASName() { return outputASName; }
+  
+  public Boolean filterLookups;
+  @CreoleParameter(comment="If the Lookups should get filtered as by filterLookups.jape",defaultValue="true")
+  @RunTime
+  @Optional  
+  public void setFilterLookups(Boolean value) { filterLookups = value; }
+  public Boolean getFilterLookups() { return filterLookups; }
+  
+  // *******************************************
+  // CLASS FIELDS
+  // *******************************************
+  
+  protected static final Logger logger = Logger
+          .getLogger(GazetteerPostMatchPR.class);
+  
+  //***********************************************************************
+  // EXECUTE
+  //***********************************************************************
+  
+  @Override
+  public void execute() {
+    Document doc = getDocument();
+    AnnotationSet inputAS = doc.getAnnotations(getInputASName());
+    AnnotationSet outputAS = doc.getAnnotations(getOutputASName());
+    boolean filter = getFilterLookups() == null || getFilterLookups();
+    AnnotationIndexService indexes = AnnotationIndexService.forDocument(doc);
+    AnnotationTypeIndex sentences = null;
+    AnnotationTypeIndex tokens = null;
+    boolean deleteNonNNP = true;
+    if(filter) {
+      sentences = indexes.getIndex(doc, "", "Sentence");
+      tokens = indexes.getIndex(doc, "", "Token");
+      String truefalse = (String)doc.getFeatures().get("deleteNonNNPLookups");
+      deleteNonNNP = truefalse == null || truefalse.equals("true");
+    }
+    // copies of removed Lookups which end up in the input set get the
+    // features added just like the others
+    List<Annotation> copies = new ArrayList<Annotation>();
+    boolean copiesToInput = outputAS == inputAS;
+    for(Annotation lookup : Utils.inDocumentOrder(inputAS.get("Lookup"))) {
+      // JAPE never matches zero length annotations, so neither do we
+      if(Utils.length(lookup) == 0) {
+        continue;
+      }
+      if(filter) {
+        String deletedBecause = filterReason(doc, lookup, sentences, tokens, deleteNonNNP);
+        if(deletedBecause != null) {
+          Annotation copy = outputAS.get(Utils.addAnn(outputAS, lookup, lookup.getType(), lookup.getFeatures()));
+          copy.getFeatures().put("deletedBecause", deletedBecause);
+          inputAS.remove(lookup);
+          if(copiesToInput) {
+            copies.add(copy);
+          }
+          continue;
+        }
+      }
+      adaptFeatures(doc, lookup);
+    }
+    for(Annotation copy : copies) {
+      adaptFeatures(doc, copy);
+    }
+  }
+  
+  // the reason why filterLookups.jape removes the Lookup or null
+  private static String filterReason(Document doc, Annotation lookup, 
+          AnnotationTypeIndex sentences, AnnotationTypeIndex tokens, boolean deleteNonNNP) {
+    long start = Utils.start(lookup);
+    long end = Utils.end(lookup);
+    if(!sentences.hasCovering(start, end)) {
+      return "notInSentence";
+    }
+    if(end - start == 1) {
+      return "length=1";
+    }
+    if(deleteNonNNP) {
+      for(Annotation token : tokens.getContained(start, end)) {
+        String cat = (String) token.getFeatures().get("category");
+        Boolean isProperNoun = (Boolean)token.getFeatures().get("isProperNoun");
+        if(isProperNoun == null) { isProperNoun = false; }
+        if(isProperNoun || cat.startsWith("NNP") ) { return null; }
+      }
+      return "noNNPorNNPS";
+    }
+    return null;
+  }
+  
+  // what createQueryFeature.jape and postProcessLookups.jape do, sharing the clean string
+  private static void adaptFeatures(Document doc, Annotation lookup) {
+    FeatureMap fm = lookup.getFeatures();
+    String cleanString = Utils.cleanStringFor(doc, lookup);
+    String query = (String)fm.get("abbreviationOf");
+    if(query == null) query = cleanString;
+    String casedfeat = fm.get("minorType").toString();
+    if(casedfeat.equals("uncased")) query = query.toLowerCase();
+    fm.put("query", query);
+    fm.put("string_orig", cleanString);
+    if(!query.isEmpty()) {
+      fm.put("string", query);
+    } else {
+      fm.put("string", cleanString.toLowerCase());
+    }
+    fm.remove("_firstcharCategory");
+    fm.remove("_firstcharUpper");
+    fm.remove("_listnr");
+    fm.remove("_string");
+  }
+  
+}
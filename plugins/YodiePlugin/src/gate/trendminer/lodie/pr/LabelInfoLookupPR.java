@@ -0,0 +1,348 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.pr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gate.Gate;
+import gate.Resource;
+import gate.creole.ResourceInstantiationException;
+import gate.creole.metadata.CreoleParameter;
+import gate.creole.metadata.CreoleResource;
+import gate.creole.metadata.Optional;
+import gate.miscutils.BatchString2StringLookup;
+import gate.miscutils.SqlString2StringLookup;
+import gate.trendminer.lodie.utils.LabelInfoCache;
+import gate.util.Files;
+import gate.util.GateRuntimeException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.log4j.Logger;
+
+/**
+ * Looks up the candidate information for the Lookup annotations of a 
+ * document with one batch of queries per document.
+ * 
+ * This creates the same annotations as the JdbcJsonLookup PR of the 
+ * lookupinfo pipeline, see AbstractLabelLookupPR, from the label table, 
+ * which gives a JSON array of objects, one for each candidate.
+ * <p>
+ * Instead of one query per input annotation, the distinct keys of all 
+ * input annotations are looked up with as few 
+ * <code>SELECT label, info FROM labelinfo WHERE label IN (...)</code> 
+ * queries as possible, and the JSON of each distinct key is only decoded 
+ * once. The rows are copied into new feature maps for each annotation,
+ * and lists and maps in the values are copied too, so nothing is shared 
+ * between the annotations or with the cache.
+ * <p>
+ * The decoded rows are kept in a LabelInfoCache of at most cacheSizeMB
+ * megabytes which is shared by all instances of this PR in the JVM that 
+ * use the same table, so the rows for frequent labels are only read and 
+ * decoded once. The cache can be filled at initialization time with the first
+ * warmupLabels labels from the file at warmupLabelsUrl, which should contain
+ * one label per line, most frequent first, optionally followed by a tab and 
+ * anything else, e.g. the frequency. 
+ * <p>
+ * The jdbcUrl may contain the variable ${dbdirectory}, which is replaced
+ * with the directory given by dbDirectoryUrl.
+ */
+@CreoleResource(name = "LabelInfoLookup",
+        comment = "Look up the candidates for the labels of a document in batches.",
+        helpURL="")
+public class LabelInfoLookupPR extends AbstractLabelLookupPR {
+  private static final long serialVersionUID = 1L;
+  
+  //****************************
+  // PARAMETERS
+  //****************************
+  
+  public String jdbcDriver;
+  @CreoleParameter(comment="The JDBC driver class",defaultValue="org.h2.Driver")
+  public void setJdbcDriver(String value) { jdbcDriver = value; }
+  public String getJdbcDriver() { return jdbcDriver; }
+  
+  public String jdbcUrl;
+  @CreoleParameter(comment="The JDBC URL, ${dbdirectory} is replaced with the database directory",defaultValue="")
+  public void setJdbcUrl(String value) { jdbcUrl = value; }
+  public String getJdbcUrl() { return jdbcUrl; }
+  
+  public String jdbcUser;
+  @CreoleParameter(comment="The database user",defaultValue="")
+  @Optional
+  public void setJdbcUser(String value) { jdbcUser = value; }
+  public String getJdbcUser() { return jdbcUser; }
+  
+  public String jdbcPassword;
+  @CreoleParameter(comment="The database password",defaultValue="")
+  @Optional
+  public void setJdbcPassword(String value) { jdbcPassword = value; }
+  public String getJdbcPassword() { return jdbcPassword; }
+  
+  public URL dbDirectoryUrl;
+  @CreoleParameter(comment="The directory which contains the database files",defaultValue="")
+  @Optional
+  public void setDbDirectoryUrl(URL value) { dbDirectoryUrl = value; }
+  public URL getDbDirectoryUrl() { return dbDirectoryUrl; }
+  
+  public String tableName;
+  @CreoleParameter(comment="The table which maps labels to the JSON candidate info",defaultValue="labelinfo")
+  public void setTableName(String value) { tableName = value; }
+  public String getTableName() { return tableName; }
+  
+  public String keyColumn;
+  @CreoleParameter(comment="The label column of the table",defaultValue="label")
+  public void setKeyColumn(String value) { keyColumn = value; }
+  public String getKeyColumn() { return keyColumn; }
+  
+  public String valueColumn;
+  @CreoleParameter(comment="The JSON info column of the table",defaultValue="info")
+  public void setValueColumn(String value) { valueColumn = value; }
+  public String getValueColumn() { return valueColumn; }
+  
+  public Integer cacheSizeMB;
+  @CreoleParameter(comment="Maximum size of the label cache shared by all instances for the same table, in MB, 0 for no cache",defaultValue="128")
+  @Optional
+  public void setCacheSizeMB(Integer value) { cacheSizeMB = value; }
+  public Integer getCacheSizeMB() { return cacheSizeMB; }
+  
+  public URL warmupLabelsUrl;
+  @CreoleParameter(comment="File with the most frequent labels to put in the cache at initialization time, one per line",defaultValue="")
+  @Optional
+  public void setWarmupLabelsUrl(URL value) { warmupLabelsUrl = value; }
+  public URL getWarmupLabelsUrl() { return warmupLabelsUrl; }
+  
+  public Integer warmupLabels;
+  @CreoleParameter(comment="Maximum number of labels to use from the warmup file",defaultValue="10000")
+  @Optional
+  public void setWarmupLabels(Integer value) { warmupLabels = value; }
+  public Integer getWarmupLabels() { return warmupLabels; }
+  
+  // *******************************************
+  // CLASS FIELDS
+  // *******************************************
+  
+  protected static final Logger logger = Logger
+          .getLogger(LabelInfoLookupPR.class);
+  
+  private static final ObjectMapper mapper = new ObjectMapper();
+  
+  private Connection connection = null;
+  private BatchString2StringLookup labelInfo = null;
+  private LabelInfoCache cache = null;
+  
+  // the number of labels looked up in one go when warming up the cache
+  private static final int WARMUP_CHUNK = 4096;
+  
+  @Override
+  public Resource init() throws ResourceInstantiationException {
+    super.init();
+    String url = getJdbcUrl();
+    if(url.contains("${dbdirectory}")) {
+      if(getDbDirectoryUrl() == null) {
+        throw new ResourceInstantiationException("jdbcUrl contains ${dbdirectory} but no dbDirectoryUrl is set");
+      }
+      url = url.replace("${dbdirectory}", Files.fileFromURL(getDbDirectoryUrl()).getAbsolutePath());
+    }
+    try {
+      Class.forName(getJdbcDriver(), true, Gate.getClassLoader());
+      connection = DriverManager.getConnection(url, 
+              getJdbcUser() == null ? "" : getJdbcUser(), 
+              getJdbcPassword() == null ? "" : getJdbcPassword());
+    } catch (ClassNotFoundException ex) {
+      throw new ResourceInstantiationException("Could not load JDBC driver "+getJdbcDriver(), ex);
+    } catch (SQLException ex) {
+      throw new ResourceInstantiationException("Could not open database connection for "+url, ex);
+    }
+    labelInfo = new SqlString2StringLookup(connection, getTableName(), getKeyColumn(), getValueColumn());
+    if(getCacheSizeMB() != null && getCacheSizeMB() > 0) {
+      // instances with different projections cache different rows
+      String name = url+"|"+getTableName()+"|"+getKeyColumn()+"|"+getValueColumn()+
+              "|"+getFieldProjection();
+      cache = LabelInfoCache.shared(name, getCacheSizeMB()*1024L*1024L);
+      if(getWarmupLabelsUrl() != null) {
+        synchronized(cache) {
+          // only the first instance for an empty cache needs to do this
+          if(cache.size() == 0) {
+            warmUp();
+          }
+        }
+      }
+    }
+    return this;
+  }
+  
+  /**
+   * Return the label cache used by this PR, or null if it does not use one. 
+   * @return 
+   */
+  public LabelInfoCache getCache() {
+    return cache;
+  }
+  
+  private void warmUp() throws ResourceInstantiationException {
+    int max = (getWarmupLabels() == null) ? Integer.MAX_VALUE : getWarmupLabels();
+    int n = 0;
+    BufferedReader in = null;
+    try {
+      in = new BufferedReader(new InputStreamReader(getWarmupLabelsUrl().openStream(), "UTF-8"));
+      List<String> chunk = new ArrayList<String>(WARMUP_CHUNK);
+      String line;
+      while(n < max && !cache.isFull() && (line = in.readLine()) != null) {
+        int tab = line.indexOf('\t');
+        String label = (tab < 0) ? line : line.substring(0, tab);
+        if(label.isEmpty()) {
+          continue;
+        }
+        chunk.add(label);
+        n++;
+        if(chunk.size() == WARMUP_CHUNK || n == max) {
+          cacheAll(chunk);
+          chunk.clear();
+        }
+      }
+      cacheAll(chunk);
+    } catch (IOException ex) {
+      throw new ResourceInstantiationException("Could not read the warmup labels from "+getWarmupLabelsUrl(), ex);
+    } finally {
+      if(in != null) {
+        try {
+          in.close();
+        } catch (IOException ex) {
+          // ignore
+        }
+      }
+    }
+    logger.info("Warmed up label cache with "+n+" labels: "+cache);
+  }
+  
+  private void cacheAll(List<String> labels) {
+    if(labels.isEmpty() || cache.isFull()) {
+      return;
+    }
+    Map<String,List<Map<String,Object>>> found = fetchAll(labels);
+    for(String label : labels) {
+      cache.put(label, found.get(label));
+    }
+  }
+  
+  @Override
+  public void cleanup() {
+    if(cache != null) {
+      logger.info("Label cache statistics: "+cache);
+    }
+    if(labelInfo instanceof SqlString2StringLookup) {
+      ((SqlString2StringLookup)labelInfo).close();
+    }
+    if(connection != null) {
+      try {
+        connection.close();
+      } catch (SQLException ex) {
+        logger.warn("Error closing the database connection", ex);
+      }
+      connection = null;
+    }
+    super.cleanup();
+  }
+  
+  /**
+   * Get the candidate rows for all the keys, from the cache if possible. 
+   * Keys which are not found are not in the returned map or map to an
+   * empty list.
+   */
+  @Override
+  protected Map<String,List<Map<String,Object>>> lookupAll(Collection<String> keys) {
+    if(cache == null) {
+      return fetchAll(keys);
+    }
+    Map<String,List<Map<String,Object>>> ret = new HashMap<String,List<Map<String,Object>>>(keys.size()*2);
+    List<String> todo = new ArrayList<String>();
+    for(String key : keys) {
+      List<Map<String,Object>> rows = cache.get(key);
+      if(rows != null) {
+        ret.put(key, rows);
+      } else {
+        todo.add(key);
+      }
+    }
+    Map<String,List<Map<String,Object>>> found = fetchAll(todo);
+    for(String key : todo) {
+      ret.put(key, cache.put(key, found.get(key)));
+    }
+    return ret;
+  }
+  
+  /**
+   * Look up and decode the candidate rows for all the keys in the database, 
+   * keys which are not found are not in the returned map.
+   */
+  protected Map<String,List<Map<String,Object>>> fetchAll(Collection<String> keys) {
+    Map<String,List<Map<String,Object>>> ret = new HashMap<String,List<Map<String,Object>>>(keys.size()*2);
+    if(keys.isEmpty()) {
+      return ret;
+    }
+    for(Map.Entry<String,String> e : labelInfo.getAll(keys).entrySet()) {
+      if(e.getValue() != null) {
+        ret.put(e.getKey(), decode(e.getKey(), e.getValue()));
+      }
+    }
+    return ret;
+  }
+  
+  /**
+   * Decode the JSON info for a label into the list of candidate rows, with
+   * just the projected fields if there is a projection.
+   * @param label
+   * @param json
+   * @return 
+   */
+  @SuppressWarnings("unchecked")
+  protected List<Map<String,Object>> decode(String label, String json) {
+    if(getFieldProjection() != null) {
+      try {
+        return getFieldProjection().decodeJson(json);
+      } catch (GateRuntimeException ex) {
+        throw new GateRuntimeException("Could not decode the info for label "+label, ex);
+      }
+    }
+    try {
+      Object value = mapper.readValue(json, Object.class);
+      if(value instanceof List) {
+        return (List<Map<String,Object>>)value;
+      } else if(value instanceof Map) {
+        return Collections.singletonList((Map<String,Object>)value);
+      } else {
+        throw new GateRuntimeException("Info for label "+label+" is not a JSON array or object: "+json);
+      }
+    } catch (IOException ex) {
+      throw new GateRuntimeException("Could not decode the info for label "+label, ex);
+    }
+  }
+  
+}
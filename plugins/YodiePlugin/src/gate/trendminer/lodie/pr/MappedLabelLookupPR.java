@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.pr;
+
+import gate.Resource;
+import gate.creole.ResourceInstantiationException;
+import gate.creole.metadata.CreoleParameter;
+import gate.creole.metadata.CreoleResource;
+import gate.miscutils.MappedLabelStore;
+import gate.util.Files;
+import gate.util.GateRuntimeException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.apache.log4j.Logger;
+
+/**
+ * Looks up the candidate information for the Lookup annotations of a 
+ * document in a memory-mapped label store. 
+ * 
+ * This creates the same annotations as LabelInfoLookupPR, see 
+ * AbstractLabelLookupPR, but from a label store directory which was 
+ * compiled from the label info table with 
+ * gate.miscutils.LabelStoreCompiler, so there is no database access and 
+ * no JSON decoding. All instances of the PR in the JVM which use the same
+ * directory share one MappedLabelStore.
+ */
+@CreoleResource(name = "MappedLabelLookup",
+        comment = "Look up the candidates for the labels of a document in a memory-mapped label store.",
+        helpURL="")
+public class MappedLabelLookupPR extends AbstractLabelLookupPR {
+  
+  private static final long serialVersionUID = 1L;
+  
+  //****************************
+  // PARAMETERS
+  //****************************
+  
+  public URL labelStoreDirUrl;
+  @CreoleParameter(comment="The directory created by LabelStoreCompiler",defaultValue="")
+  public void setLabelStoreDirUrl(URL value) { labelStoreDirUrl = value; }
+  public URL getLabelStoreDirUrl() { return labelStoreDirUrl; }
+  
+  // *******************************************
+  // CLASS FIELDS
+  // *******************************************
+  
+  protected static final Logger logger = Logger
+          .getLogger(MappedLabelLookupPR.class);
+  
+  private MappedLabelStore store = null;
+  
+  @Override
+  public Resource init() throws ResourceInstantiationException {
+    super.init();
+    if(getLabelStoreDirUrl() == null) {
+      throw new ResourceInstantiationException("labelStoreDirUrl must be set");
+    }
+    try {
+      store = MappedLabelStore.shared(Files.fileFromURL(getLabelStoreDirUrl()));
+    } catch (GateRuntimeException ex) {
+      throw new ResourceInstantiationException("Could not open the label store at "+getLabelStoreDirUrl(), ex);
+    }
+    logger.info("Using "+store);
+    return this;
+  }
+  
+  public MappedLabelStore getStore() {
+    return store;
+  }
+  
+  @Override
+  protected Map<String,List<Map<String,Object>>> lookupAll(Collection<String> keys) {
+    return store.getAll(keys, getFieldProjection());
+  }
+  
+}
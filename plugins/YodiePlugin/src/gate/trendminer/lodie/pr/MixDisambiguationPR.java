@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.pr;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.FeatureMap;
+import gate.Resource;
+import gate.creole.ResourceInstantiationException;
+import gate.creole.metadata.CreoleResource;
+import gate.trendminer.lodie.utils.CandidateList;
+import java.util.Arrays;
+
+/**
+ * Picks the candidate with the highest weighted sum of score features for 
+ * each LookupList.
+ * 
+ * This does the same as the mix-disamb.java script of the 
+ * disambiguation-simple pipeline and is configured with the same system 
+ * properties:
+ * <ul>
+ * <li>lodie.disambiguation-simple.mix-disamb.featureNames: comma separated 
+ * names of the score features, default scPageRank,scStringSimilarity
+ * <li>lodie.disambiguation-simple.mix-disamb.featureWeights: comma separated 
+ * weights, all weights are 1.0 if the number of weights is wrong
+ * <li>lodie.disambiguation-simple.mix-disamb.minScore: if the best score
+ * is lower than this, a NIL annotation is created, default 0.0
+ * <li>lodie.disambiguation-simple.mix-disamb.createNilMentions: true or 
+ * false, the NIL annotation is a NilMention if true, otherwise a Mention 
+ * with an empty inst
+ * </ul>
+ * The features and weights are resolved once at init time. For each 
+ * LookupList, the weighted feature values of all candidates are put into 
+ * a primitive matrix, one row per feature, and the scores are summed up 
+ * row by row, adding the features in the configured order so the
+ * scores are exactly the same as those of the script. Feature values which 
+ * are not numbers are ignored. 
+ * <p>
+ * See AbstractDisambiguationPR for how to score the lists of large 
+ * documents in parallel.
+ */
+@CreoleResource(name = "MixDisambiguation",
+        comment = "Pick the candidate with the best weighted feature score for each LookupList.",
+        helpURL="")
+public class MixDisambiguationPR extends AbstractDisambiguationPR {
+  private static final long serialVersionUID = 1L;
+  
+  public static final String PROPERTY_PREFIX = "lodie.disambiguation-simple.mix-disamb.";
+  
+  protected String[] featureNames = { "scPageRank", "scStringSimilarity" };
+  protected double[] featureWeights = { 1.0, 1.0 };
+  
+  // the weighted feature values, one row per feature, and the scores, 
+  // reused for all lists processed by a thread
+  private final ThreadLocal<double[][]> buffers = new ThreadLocal<double[][]>() {
+    @Override
+    protected double[][] initialValue() {
+      return new double[][] { new double[0], new double[0] };
+    }
+  };
+  
+  @Override
+  public Resource init() throws ResourceInstantiationException {
+    String conf = System.getProperty(PROPERTY_PREFIX+"featureNames");
+    if(conf != null) {
+      String[] fn = conf.split(",");
+      featureNames = new String[fn.length];
+      for(int i=0; i<fn.length; i++) {
+        featureNames[i] = fn[i].trim();
+      }
+    }
+    String weights = System.getProperty(PROPERTY_PREFIX+"featureWeights");
+    if(weights != null) {
+      String[] fw = weights.split(",");
+      featureWeights = new double[fw.length];
+      for(int i=0; i<fw.length; i++) {
+        featureWeights[i] = Double.parseDouble(fw[i].trim());
+      }
+    }
+    if(featureNames.length != featureWeights.length) {
+      logger.warn("Wrong number of weights for feature selection. Using equal weights.");
+      featureWeights = new double[featureNames.length];
+      Arrays.fill(featureWeights, 1.0);
+    }
+    initNilProperties(PROPERTY_PREFIX);
+    return this;
+  }
+  
+  @Override
+  protected Choice choose(AnnotationSet inputAS, Annotation listAnn) {
+    CandidateList cands = new CandidateList(inputAS, listAnn);
+    int n = cands.size();
+    if(n == 0) {
+      return new Choice(null, false);
+    }
+    double[] scores = computeScores(cands);
+    int best = 0;
+    for(int c=1; c<n; c++) {
+      if(scores[c] > scores[best]) {
+        best = c;
+      }
+    }
+    FeatureMap bestFm = cands.getFeatures(best);
+    return new Choice(bestFm, scores[best] < minScore);
+  }
+  
+  /**
+   * Compute the scores of all candidates, the returned array may be longer
+   * than the number of candidates and is reused by the next call from the 
+   * same thread.
+   */
+  protected double[] computeScores(CandidateList cands) {
+    int n = cands.size();
+    int nf = featureNames.length;
+    double[][] buf = buffers.get();
+    if(buf[0].length < n*nf) {
+      buf[0] = new double[n*nf];
+    }
+    if(buf[1].length < n) {
+      buf[1] = new double[n];
+    }
+    double[] matrix = buf[0];
+    double[] scores = buf[1];
+    // a feature which is not a number adds 0.0, which does not change the sum
+    for(int c=0; c<n; c++) {
+      FeatureMap fm = cands.getFeatures(c);
+      for(int f=0; f<nf; f++) {
+        Object value = fm.get(featureNames[f]);
+        matrix[f*n+c] = (value instanceof Number) ? 
+                ((Number)value).doubleValue()*featureWeights[f] : 0.0;
+      }
+    }
+    Arrays.fill(scores, 0, n, 0.0);
+    for(int f=0; f<nf; f++) {
+      int row = f*n;
+      for(int c=0; c<n; c++) {
+        scores[c] += matrix[row+c];
+      }
+    }
+    return scores;
+  }
+  
+}
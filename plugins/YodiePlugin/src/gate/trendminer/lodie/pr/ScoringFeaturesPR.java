@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.pr;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.Document;
+import gate.FeatureMap;
+import gate.ProcessingResource;
+import gate.Utils;
+import gate.creole.AbstractLanguageAnalyser;
+import gate.creole.metadata.CreoleParameter;
+import gate.creole.metadata.CreoleResource;
+import gate.creole.metadata.Optional;
+import gate.creole.metadata.RunTime;
+import gate.trendminer.lodie.utils.AnnotationIndexService;
+import gate.trendminer.lodie.utils.AnnotationTypeIndex;
+import gate.trendminer.lodie.utils.StringSimilarity;
+import java.util.List;
+import org.apache.log4j.Logger;
+
+/**
+ * Adds the scoring features to all Lookup annotations in one pass.
+ * 
+ * This sets the same features as the JAPE grammars of the scoring-bio 
+ * pipeline:
+ * <ul>
+ * <li>add-len-feature: scStringLength
+ * <li>log-features: scMeshFreqLog
+ * <li>makeCUIScore: scCui
+ * <li>add-string-similarity: scStringSimilarity
+ * <li>correct-null-features: scMeshFreq is set to null if it is not a number
+ * <li>add-positional-features, only if addPositionalFeatures is true: 
+ * the minusOneTokenPOS/String to minusFiveTokenPOS/String features
+ * </ul>
+ * The preceding Tokens for the positional features are found with the 
+ * shared Token index of the document instead of getting all the Tokens 
+ * before each Lookup, and the string similarities are computed with
+ * StringSimilarity.
+ */
+@CreoleResource(name = "ScoringFeatures",
+        comment = "Add the scoring features to the Lookup annotations in one pass.",
+        helpURL="")
+public class ScoringFeaturesPR extends AbstractLanguageAnalyser 
+  implements ProcessingResource
+{
+  private static final long serialVersionUID = 1L;
+  
+  //****************************
+  // PARAMETERS
+  //****************************
+  
+  public String inputASName;
+  @CreoleParameter(comment="Annotation set containing the Lookup and Token annotations",defaultValue="")
+  @RunTime
+  @Optional  
+  public void setInputASName(String value) { inputASName = value; }
+  public String getInputASName() { return inputASName; }
+  
+  public Boolean addPositionalFeatures;
+  @CreoleParameter(comment="If the features of the five preceding Tokens should be added too",defaultValue="false")
+  @RunTime
+  @Optional  
+  public void setAddPositionalFeatures(Boolean value) { addPositionalFeatures = value; }
+  public Boolean getAddPositionalFeatures() { return addPositionalFeatures; }
+  
+  // *******************************************
+  // CLASS FIELDS
+  // *******************************************
+  
+  protected static final Logger logger = Logger
+          .getLogger(ScoringFeaturesPR.class);
+  
+  private static final String[] POSITIONS = { "One", "Two", "Three", "Four", "Five" };
+  
+  //***********************************************************************
+  // EXECUTE
+  //***********************************************************************
+  
+  @Override
+  public void execute() {
+    Document doc = getDocument();
+    AnnotationSet inputAS = doc.getAnnotations(getInputASName());
+    AnnotationTypeIndex tokens = null;
+    if(getAddPositionalFeatures() != null && getAddPositionalFeatures()) {
+      tokens = AnnotationIndexService.indexFor(inputAS, "Token");
+    }
+    for(Annotation lu : inputAS.get("Lookup")) {
+      // JAPE never matches zero length annotations
+      if(Utils.length(lu) == 0) {
+        continue;
+      }
+      FeatureMap fm = lu.getFeatures();
+      fm.put("scStringLength", Utils.cleanStringFor(doc, lu).length());
+      addLogFeatures(fm);
+      addCuiScore(fm);
+      addStringSimilarity(fm);
+      correctNullFeatures(fm);
+      if(tokens != null) {
+        addPositionalFeatures(fm, tokens.getPreceding(Utils.start(lu), 5));
+      }
+    }
+  }
+  
+  // log-features.jape
+  private static void addLogFeatures(FeatureMap fm) {
+    Object meshFreq = fm.get("scMeshFreq");
+    if(meshFreq != null && !meshFreq.toString().equals("") && !meshFreq.toString().equals("null")) {
+      fm.put("scMeshFreqLog", Math.log10(((Integer)meshFreq).doubleValue()));
+    } else {
+      fm.put("scMeshFreqLog", 0.0);
+    }
+  }
+  
+  // makeCUIScore.jape
+  private static void addCuiScore(FeatureMap fm) {
+    String cui = fm.get("inst").toString();
+    float cuiFl = Float.parseFloat(cui.substring(2));
+    fm.put("scCui", (1000000-cuiFl)/1000000);
+  }
+  
+  // add-string-similarity.jape
+  private static void addStringSimilarity(FeatureMap fm) {
+    String label = fm.get("label").toString();
+    String string_orig = fm.get("string_orig").toString();
+    fm.put("scStringSimilarity", StringSimilarity.similarity(label, string_orig));
+  }
+  
+  // correct-null-features.jape
+  private static void correctNullFeatures(FeatureMap fm) {
+    Object feat = fm.get("scMeshFreq");
+    if(feat != null && !(feat instanceof Number)) {
+      fm.put("scMeshFreq", null);
+    }
+  }
+  
+  // add-positional-features.jape
+  private static void addPositionalFeatures(FeatureMap fm, List<Annotation> precedingTokens) {
+    int n = precedingTokens.size();
+    for(int i=0; i<n; i++) {
+      // NOTE: the JAPE grammar uses the third token before the Lookup for 
+      // the "Five" features, this is kept so the features stay the same
+      Annotation token = precedingTokens.get(n - (i == 4 ? 3 : i+1));
+      fm.put("minus"+POSITIONS[i]+"TokenPOS", token.getFeatures().get("category"));
+      fm.put("minus"+POSITIONS[i]+"TokenString", token.getFeatures().get("string"));
+    }
+  }
+  
+}
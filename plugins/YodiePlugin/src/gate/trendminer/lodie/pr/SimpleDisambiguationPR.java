@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.pr;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.FeatureMap;
+import gate.Resource;
+import gate.creole.ResourceInstantiationException;
+import gate.creole.metadata.CreoleResource;
+import gate.trendminer.lodie.utils.LodieUtils;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks the candidate with the highest value of a single feature for 
+ * each LookupList.
+ * 
+ * This does the same as the simple-disamb.java script of the 
+ * disambiguation-simple pipeline and is configured with the same system 
+ * properties:
+ * <ul>
+ * <li>lodie.disambiguation-simple.simple-disamb.featureName: the feature,
+ * default relUriFreqByLabelInWp
+ * <li>lodie.disambiguation-simple.simple-disamb.minScore: if the value of 
+ * the best candidate is lower than this, a NIL annotation is created, 
+ * default 0.05
+ * <li>lodie.disambiguation-simple.simple-disamb.createNilMentions: true or 
+ * false, the NIL annotation is a NilMention if true, otherwise a Mention 
+ * with an empty inst
+ * </ul>
+ * See AbstractDisambiguationPR for how to process the lists of large 
+ * documents in parallel.
+ */
+@CreoleResource(name = "SimpleDisambiguation",
+        comment = "Pick the candidate with the highest feature value for each LookupList.",
+        helpURL="")
+public class SimpleDisambiguationPR extends AbstractDisambiguationPR {
+  private static final long serialVersionUID = 1L;
+  
+  public static final String PROPERTY_PREFIX = "lodie.disambiguation-simple.simple-disamb.";
+  
+  protected String featureName = "relUriFreqByLabelInWp";
+  
+  @Override
+  public Resource init() throws ResourceInstantiationException {
+    minScore = 0.05;
+    String conf = System.getProperty(PROPERTY_PREFIX+"featureName");
+    if(conf != null) {
+      featureName = conf;
+      logger.info("Using feature name "+conf);
+    }
+    initNilProperties(PROPERTY_PREFIX);
+    return this;
+  }
+  
+  @Override
+  protected Choice choose(AnnotationSet inputAS, Annotation listAnn) {
+    List<FeatureMap> cands = LodieUtils.getCandidateList(inputAS,listAnn);
+    List<FeatureMap> best = new ArrayList<FeatureMap>(); 
+    try {
+      best = LodieUtils.sortCandidatesDescOn(cands,featureName,1,true);
+    } catch (Exception ex) {
+      StringBuilder sb = new StringBuilder();
+      for(FeatureMap fmtmp : cands) { 
+        sb.append("\nCAND: ").append(LodieUtils.toStringFeatureMap(fmtmp,featureName));
+      }
+      logger.error("Got an exception when trying to sort candidates on "+featureName+sb, ex);
+    }
+    if(best.isEmpty()) {
+      return new Choice(null, false);
+    }
+    // get the 0-th one, if there is more than one, this will be a random one
+    FeatureMap bestFm = best.get(0);
+    // if the feature value of the best one is less than the minScore, it is a NIL
+    Number val = 0;
+    if(bestFm.get(featureName) instanceof Number) {
+      val = (Number)bestFm.get(featureName); 
+    }    
+    return new Choice(bestFm, val.doubleValue() < minScore);
+  }
+  
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.utils;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.Document;
+import gate.event.AnnotationSetEvent;
+import gate.event.AnnotationSetListener;
+import gate.event.DocumentEvent;
+import gate.event.DocumentListener;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Shares offset indexes for the annotation sets of a document between all PRs.
+ * 
+ * Many PRs and JAPE grammars look up the covering, contained or coextensive
+ * annotations of some type for each annotation they process. Instead of 
+ * each of them running these queries against the annotation set, they can
+ * get an AnnotationTypeIndex for the set and type from the service of the 
+ * document:
+ * <pre>
+ * AnnotationIndexService.forDocument(doc).getIndex("", "Sentence").hasCovering(start, end)
+ * </pre>
+ * The index is created on first use and then kept with the document. The 
+ * service listens to the annotation sets it has indexes for and passes 
+ * added and removed annotations on to the index for their type and the 
+ * index over all types, which update themselves on their next use. Editing
+ * the document content drops all indexes.
+ * <p>
+ * The services are kept in a weak map, so they go away with the document.
+ * A document must not be processed by several threads at the same time.
+ */
+public class AnnotationIndexService {
+  
+  private static final Map<Document,AnnotationIndexService> services = 
+          new WeakHashMap<Document,AnnotationIndexService>();
+  
+  // set name -> type -> index, the type for an index over all types is null
+  private final Map<String,Map<String,AnnotationTypeIndex>> indexes = 
+          new HashMap<String,Map<String,AnnotationTypeIndex>>();
+  private final Map<String,SetListener> listeners = new HashMap<String,SetListener>();
+  
+  // NOTE: this must not keep a reference to the document, otherwise the weak map 
+  // would never release it.
+  private AnnotationIndexService() {}
+  
+  /**
+   * Return the index service for the document, creating it if necessary.
+   * @param doc
+   * @return 
+   */
+  public static AnnotationIndexService forDocument(Document doc) {
+    synchronized(services) {
+      AnnotationIndexService service = services.get(doc);
+      if(service == null) {
+        service = new AnnotationIndexService();
+        doc.addDocumentListener(service.new DocListener());
+        services.put(doc, service);
+      }
+      return service;
+    }
+  }
+  
+  /**
+   * Shortcut for forDocument(set.getDocument()).getIndex(set, type).
+   * @param set
+   * @param type
+   * @return 
+   */
+  public static AnnotationTypeIndex indexFor(AnnotationSet set, String type) {
+    return forDocument(set.getDocument()).getIndex(set, type);
+  }
+  
+  /**
+   * Return the index for the type in the named set of the document.
+   * @param doc
+   * @param setName the set name, null or the empty string for the default set
+   * @param type the annotation type or null to index all annotations in the set
+   * @return 
+   */
+  public AnnotationTypeIndex getIndex(Document doc, String setName, String type) {
+    return getIndex(setName == null || setName.isEmpty() ? doc.getAnnotations() : doc.getAnnotations(setName), type);
+  }
+  
+  /**
+   * Return the index for the type in the set, which must be one of the 
+   * annotation sets of the document of this service.
+   * @param set
+   * @param type the annotation type or null to index all annotations in the set
+   * @return 
+   */
+  public AnnotationTypeIndex getIndex(AnnotationSet set, String type) {
+    String setName = nameOf(set);
+    Map<String,AnnotationTypeIndex> byType = indexes.get(setName);
+    if(byType == null) {
+      byType = new HashMap<String,AnnotationTypeIndex>();
+      indexes.put(setName, byType);
+    }
+    if(!listeners.containsKey(setName)) {
+      SetListener listener = new SetListener(setName);
+      set.addAnnotationSetListener(listener);
+      listeners.put(setName, listener);
+    }
+    AnnotationTypeIndex index = byType.get(type);
+    if(index == null) {
+      index = new AnnotationTypeIndex(type == null ? set : set.get(type));
+      byType.put(type, index);
+    }
+    return index;
+  }
+  
+  /**
+   * Drop all indexes, they get created again on next use.
+   */
+  public void clear() {
+    indexes.clear();
+  }
+  
+  private static String nameOf(AnnotationSet set) {
+    return set.getName() == null ? "" : set.getName();
+  }
+  
+  private class SetListener implements AnnotationSetListener {
+    private final String setName;
+    SetListener(String setName) {
+      this.setName = setName;
+    }
+    @Override
+    public void annotationAdded(AnnotationSetEvent e) {
+      Map<String,AnnotationTypeIndex> byType = indexes.get(setName);
+      if(byType != null) {
+        Annotation ann = e.getAnnotation();
+        AnnotationTypeIndex index = byType.get(ann.getType());
+        if(index != null) {
+          index.added(ann);
+        }
+        index = byType.get(null);
+        if(index != null) {
+          index.added(ann);
+        }
+      }
+    }
+    @Override
+    public void annotationRemoved(AnnotationSetEvent e) {
+      Map<String,AnnotationTypeIndex> byType = indexes.get(setName);
+      if(byType != null) {
+        Annotation ann = e.getAnnotation();
+        AnnotationTypeIndex index = byType.get(ann.getType());
+        if(index != null) {
+          index.removed(ann);
+        }
+        index = byType.get(null);
+        if(index != null) {
+          index.removed(ann);
+        }
+      }
+    }
+  }
+  
+  private class DocListener implements DocumentListener {
+    @Override
+    public void annotationSetAdded(DocumentEvent e) {
+    }
+    @Override
+    public void annotationSetRemoved(DocumentEvent e) {
+      String setName = e.getAnnotationSetName() == null ? "" : e.getAnnotationSetName();
+      indexes.remove(setName);
+      listeners.remove(setName);
+    }
+    @Override
+    public void contentEdited(DocumentEvent e) {
+      indexes.clear();
+    }
+  }
+  
+}
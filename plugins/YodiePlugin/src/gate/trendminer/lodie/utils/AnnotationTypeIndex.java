@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.utils;
+
+import gate.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the annotations of one type in one annotation set, sorted by offset.
+ * 
+ * The annotations are kept in an array sorted by start offset, then end offset,
+ * then annotation id, together with the start and end offsets and the running maximum of the
+ * end offsets. This allows to find the covering, contained, coextensive and
+ * overlapping annotations for a span and the annotations preceding an offset 
+ * with binary searches, in time logarithmic in the number of annotations plus 
+ * the number of annotations returned. The offset semantics are exactly those of
+ * Utils.getCoveringAnnotations, getContainedAnnotations, getCoextensiveAnnotations
+ * and getOverlappingAnnotations. All lists are returned in document order,
+ * i.e. in the order of Utils.inDocumentOrder, which sorts by start and end
+ * offset only: annotations with the same start and end offset are ordered
+ * by id here, while inDocumentOrder leaves them in the iteration order of
+ * the set.
+ * <p>
+ * Instances are obtained from and kept up to date by AnnotationIndexService. 
+ * Annotations added to the set are collected and merged into the sorted 
+ * arrays on the next query, which takes time linear in the size of the 
+ * index instead of sorting everything again. Annotations removed from the
+ * set are skipped, and dropped from the arrays on the next merge or once
+ * they make up a quarter of the index.
+ */
+public class AnnotationTypeIndex {
+  
+  private static final Comparator<Annotation> ORDER = new Comparator<Annotation>() {
+    @Override
+    public int compare(Annotation a1, Annotation a2) {
+      long s1 = a1.getStartNode().getOffset();
+      long s2 = a2.getStartNode().getOffset();
+      if(s1 != s2) {
+        return s1 < s2 ? -1 : 1;
+      }
+      long e1 = a1.getEndNode().getOffset();
+      long e2 = a2.getEndNode().getOffset();
+      if(e1 != e2) {
+        return e1 < e2 ? -1 : 1;
+      }
+      return a1.getId().compareTo(a2.getId());
+    }
+  };
+  
+  private Annotation[] anns;
+  private long[] starts;
+  private long[] ends;
+  private long[] prefixMaxEnd;
+  private final Set<Integer> removedIds = new HashSet<Integer>();
+  // annotations added since the last merge
+  private final Map<Integer,Annotation> added = new HashMap<Integer,Annotation>();
+  
+  AnnotationTypeIndex(Collection<Annotation> annotations) {
+    Annotation[] sorted = annotations.toArray(new Annotation[annotations.size()]);
+    Arrays.sort(sorted, ORDER);
+    setAnnotations(sorted);
+  }
+  
+  private void setAnnotations(Annotation[] sorted) {
+    anns = sorted;
+    int n = anns.length;
+    starts = new long[n];
+    ends = new long[n];
+    prefixMaxEnd = new long[n];
+    for(int i=0; i<n; i++) {
+      starts[i] = anns[i].getStartNode().getOffset();
+      ends[i] = anns[i].getEndNode().getOffset();
+      prefixMaxEnd[i] = (i == 0) ? ends[i] : Math.max(prefixMaxEnd[i-1], ends[i]);
+    }
+  }
+  
+  void added(Annotation ann) {
+    added.put(ann.getId(), ann);
+  }
+  
+  void removed(Annotation ann) {
+    // if it has not been merged yet, it is enough to forget it
+    if(added.remove(ann.getId()) == null) {
+      removedIds.add(ann.getId());
+    }
+  }
+  
+  // merge the added annotations into the arrays and drop the removed ones,
+  // if there are any added or enough removed annotations
+  private void update() {
+    if(added.isEmpty() && removedIds.size() <= Math.max(16, anns.length/4)) {
+      return;
+    }
+    Annotation[] toAdd = added.values().toArray(new Annotation[added.size()]);
+    Arrays.sort(toAdd, ORDER);
+    Annotation[] merged = new Annotation[anns.length + toAdd.length];
+    int n = 0;
+    int j = 0;
+    for(int i=0; i<anns.length; i++) {
+      if(!isLive(i)) {
+        continue;
+      }
+      while(j < toAdd.length && ORDER.compare(toAdd[j], anns[i]) < 0) {
+        merged[n++] = toAdd[j++];
+      }
+      merged[n++] = anns[i];
+    }
+    while(j < toAdd.length) {
+      merged[n++] = toAdd[j++];
+    }
+    added.clear();
+    removedIds.clear();
+    setAnnotations(n == merged.length ? merged : Arrays.copyOf(merged, n));
+  }
+  
+  private boolean isLive(int i) {
+    return removedIds.isEmpty() || !removedIds.contains(anns[i].getId());
+  }
+  
+  /**
+   * Number of annotations in the index, including removed ones which have 
+   * not been dropped yet.
+   * @return 
+   */
+  public int size() {
+    update();
+    return anns.length;
+  }
+  
+  /**
+   * Annotations which start at or before start and end at or after end.
+   * @param start
+   * @param end
+   * @return 
+   */
+  public List<Annotation> getCovering(long start, long end) {
+    update();
+    List<Annotation> ret = new ArrayList<Annotation>();
+    // go backwards from the last annotation starting at or before start, 
+    // as long as there still is one with a large enough end
+    for(int i=lowerBound(start+1)-1; i>=0 && prefixMaxEnd[i] >= end; i--) {
+      if(ends[i] >= end && isLive(i)) {
+        ret.add(anns[i]);
+      }
+    }
+    Collections.reverse(ret);
+    return ret;
+  }
+  
+  public boolean hasCovering(long start, long end) {
+    update();
+    for(int i=lowerBound(start+1)-1; i>=0 && prefixMaxEnd[i] >= end; i--) {
+      if(ends[i] >= end && isLive(i)) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  /**
+   * Annotations which start at or after start, end at or before end and start before end.
+   * @param start
+   * @param end
+   * @return 
+   */
+  public List<Annotation> getContained(long start, long end) {
+    update();
+    List<Annotation> ret = new ArrayList<Annotation>();
+    int to = lowerBound(end);
+    for(int i=lowerBound(start); i<to; i++) {
+      if(ends[i] <= end && isLive(i)) {
+        ret.add(anns[i]);
+      }
+    }
+    return ret;
+  }
+  
+  /**
+   * Annotations which start at start and end at end.
+   * @param start
+   * @param end
+   * @return 
+   */
+  public List<Annotation> getCoextensive(long start, long end) {
+    update();
+    List<Annotation> ret = new ArrayList<Annotation>();
+    int to = lowerBound(start+1);
+    for(int i=lowerBound(start); i<to; i++) {
+      if(ends[i] == end && isLive(i)) {
+        ret.add(anns[i]);
+      }
+    }
+    return ret;
+  }
+  
+  public boolean hasCoextensive(long start, long end) {
+    update();
+    int to = lowerBound(start+1);
+    for(int i=lowerBound(start); i<to; i++) {
+      if(ends[i] == end && isLive(i)) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  /**
+   * Annotations which start before start and end after start, or start 
+   * at or after start and before end.
+   * @param start
+   * @param end
+   * @return 
+   */
+  public List<Annotation> getOverlapping(long start, long end) {
+    update();
+    List<Annotation> ret = new ArrayList<Annotation>();
+    int from = lowerBound(start);
+    for(int i=from-1; i>=0 && prefixMaxEnd[i] > start; i--) {
+      if(ends[i] > start && isLive(i)) {
+        ret.add(anns[i]);
+      }
+    }
+    Collections.reverse(ret);
+    for(int i=from; i<anns.length && starts[i] < end; i++) {
+      if(isLive(i)) {
+        ret.add(anns[i]);
+      }
+    }
+    return ret;
+  }
+  
+  /**
+   * The last k annotations which are contained in the span from 0 to offset, in document order.
+   * 
+   * These are the last k annotations of the list Utils.inDocumentOrder(set.getContained(0L,offset)),
+   * up to the order of annotations with the same offsets.
+   * @param offset
+   * @param k
+   * @return 
+   */
+  public List<Annotation> getPreceding(long offset, int k) {
+    update();
+    List<Annotation> ret = new ArrayList<Annotation>(k);
+    for(int i=lowerBound(offset)-1; i>=0 && ret.size() < k; i--) {
+      if(ends[i] <= offset && isLive(i)) {
+        ret.add(anns[i]);
+      }
+    }
+    Collections.reverse(ret);
+    return ret;
+  }
+  
+  /**
+   * The first k annotations which start at or after offset, in document order.
+   * 
+   * @param offset
+   * @param k
+   * @return 
+   */
+  public List<Annotation> getFollowing(long offset, int k) {
+    update();
+    List<Annotation> ret = new ArrayList<Annotation>(k);
+    for(int i=lowerBound(offset); i<anns.length && ret.size() < k; i++) {
+      if(isLive(i)) {
+        ret.add(anns[i]);
+      }
+    }
+    return ret;
+  }
+  
+  // first index with a start offset >= offset
+  private int lowerBound(long offset) {
+    int lo = 0, hi = starts.length;
+    while(lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if(starts[mid] < offset) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+  
+}
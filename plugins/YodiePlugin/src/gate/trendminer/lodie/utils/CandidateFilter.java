@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A predicate on candidate rows which keeps only candidates from some 
+ * vocabularies and/or of some semantic types.
+ * 
+ * The vocabulary test is the one of subsetByVocab.java: a candidate is kept
+ * if one of the comma separated vocabularies in its CUIVOCABS feature is one 
+ * of the vocabularies of the filter. The semantic type test is the one of 
+ * type-filter.java: a candidate is kept if its STY feature contains one of 
+ * the types of the filter. Candidates without the feature are not kept.
+ * <p>
+ * Each vocabulary and type of the filter is given a bit position, and the 
+ * set of those that occur in a CUIVOCABS or STY value is computed once for 
+ * each distinct value as a bitmask. After that, testing a candidate is a 
+ * hash lookup of its values and an AND of the masks. The masks are kept in
+ * bounded maps which are not thread-safe, so each thread needs its own 
+ * filter.
+ */
+public class CandidateFilter {
+  
+  public static final String VOCABULARY_FEATURE = "CUIVOCABS";
+  public static final String TYPE_FEATURE = "STY";
+  
+  // the maximum number of distinct values for which the masks are kept
+  private static final int MAX_CACHED_VALUES = 100000;
+  
+  private final Map<String,Integer> vocabularyBits;
+  private final String[] types;
+  private final int nwords;
+  private final Map<String,long[]> vocabularyMasks = new HashMap<String,long[]>();
+  private final Map<String,long[]> typeMasks = new HashMap<String,long[]>();
+  
+  /**
+   * Create the filter for the semicolon separated vocabularies and types,
+   * either of which may be null or empty to not filter on it.
+   * @param vocabularies
+   * @param types 
+   */
+  public CandidateFilter(String vocabularies, String types) {
+    vocabularyBits = new LinkedHashMap<String,Integer>();
+    for(String vocabulary : split(vocabularies)) {
+      if(!vocabularyBits.containsKey(vocabulary)) {
+        vocabularyBits.put(vocabulary, vocabularyBits.size());
+      }
+    }
+    List<String> typeList = split(types);
+    this.types = typeList.toArray(new String[typeList.size()]);
+    nwords = (Math.max(vocabularyBits.size(), this.types.length) + 63) / 64;
+  }
+  
+  // the non-empty parts of the semicolon separated list, like String.split
+  private static List<String> split(String list) {
+    List<String> ret = new ArrayList<String>();
+    if(list != null) {
+      for(String s : list.split(";")) {
+        if(!s.isEmpty()) {
+          ret.add(s);
+        }
+      }
+    }
+    return ret;
+  }
+  
+  /**
+   * Return true if the filter does not remove any candidates.
+   * @return 
+   */
+  public boolean isEmpty() {
+    return vocabularyBits.isEmpty() && types.length == 0;
+  }
+  
+  /**
+   * Return true if the candidate with the given features passes the filter.
+   * @param row
+   * @return 
+   */
+  public boolean accept(Map<String,Object> row) {
+    if(!vocabularyBits.isEmpty()) {
+      Object value = row.get(VOCABULARY_FEATURE);
+      if(value == null || !any(vocabularyMask(value.toString()))) {
+        return false;
+      }
+    }
+    if(types.length > 0) {
+      Object value = row.get(TYPE_FEATURE);
+      if(value == null || !any(typeMask(value.toString()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Return the rows which pass the filter, or the list itself if all do.
+   * @param rows
+   * @return 
+   */
+  public List<Map<String,Object>> filter(List<Map<String,Object>> rows) {
+    List<Map<String,Object>> ret = null;
+    for(int i=0; i<rows.size(); i++) {
+      boolean ok = accept(rows.get(i));
+      if(!ok && ret == null) {
+        ret = new ArrayList<Map<String,Object>>(rows.subList(0, i));
+      } else if(ok && ret != null) {
+        ret.add(rows.get(i));
+      }
+    }
+    return ret == null ? rows : ret;
+  }
+  
+  private static boolean any(long[] mask) {
+    for(long word : mask) {
+      if(word != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  // the bits of the filter vocabularies which are in the comma separated list
+  private long[] vocabularyMask(String value) {
+    long[] mask = vocabularyMasks.get(value);
+    if(mask == null) {
+      mask = new long[nwords];
+      for(String vocabulary : value.split(",")) {
+        Integer bit = vocabularyBits.get(vocabulary);
+        if(bit != null) {
+          mask[bit >> 6] |= 1L << bit;
+        }
+      }
+      cache(vocabularyMasks, value, mask);
+    }
+    return mask;
+  }
+  
+  // the bits of the filter types which are contained in the value
+  private long[] typeMask(String value) {
+    long[] mask = typeMasks.get(value);
+    if(mask == null) {
+      mask = new long[nwords];
+      for(int bit=0; bit<types.length; bit++) {
+        if(value.contains(types[bit])) {
+          mask[bit >> 6] |= 1L << bit;
+        }
+      }
+      cache(typeMasks, value, mask);
+    }
+    return mask;
+  }
+  
+  private static void cache(Map<String,long[]> masks, String value, long[] mask) {
+    if(masks.size() >= MAX_CACHED_VALUES) {
+      masks.clear();
+    }
+    masks.put(value, mask);
+  }
+  
+  @Override
+  public String toString() {
+    return "CandidateFilter(vocabularies="+vocabularyBits.keySet()+",types="+Arrays.asList(types)+")";
+  }
+  
+}
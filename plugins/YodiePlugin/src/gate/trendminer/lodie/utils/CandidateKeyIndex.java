@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.utils;
+
+import gate.FeatureMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A hash index over a collection of candidates for fast matching.
+ *
+ * This indexes the candidate feature maps by a key which is made up of the
+ * values of the given features, or of all keys and values of the feature map
+ * if no features are given. A candidate then matches some indexed candidate
+ * exactly when LodieUtils.isMatchingCandidates would return true for the two,
+ * so checking for a match is a single hash lookup instead of a scan over
+ * the whole collection.
+ * <p>
+ * NOTE: the index takes a snapshot of the keys when it is created, changes
+ * to the collection or the feature maps after that are not reflected.
+ * NOTE: a null feature value only matches a null value (the linear scan
+ * in isMatchingCandidates throws an exception in that case).
+ */
+public class CandidateKeyIndex {
+
+  private final String[] features;
+  private final Set<Object> keys;
+
+  /**
+   * Create an index over all the candidates in the collection.
+   *
+   * @param candidates the candidate feature maps to index
+   * @param features the features to use for matching, if none are given,
+   * all features are used
+   */
+  public CandidateKeyIndex(Collection<FeatureMap> candidates, String... features) {
+    this.features = features;
+    keys = new HashSet<Object>(candidates.size()*2);
+    for(FeatureMap fm : candidates) {
+      keys.add(keyFor(fm));
+    }
+  }
+
+  /**
+   * Return true if there is an indexed candidate that matches the given one.
+   * @param candidate
+   * @return
+   */
+  public boolean contains(FeatureMap candidate) {
+    return keys.contains(keyFor(candidate));
+  }
+
+  /**
+   * Add another candidate to the index.
+   * @param candidate
+   */
+  public void add(FeatureMap candidate) {
+    keys.add(keyFor(candidate));
+  }
+
+  /**
+   * Number of distinct keys in the index.
+   * @return
+   */
+  public int size() {
+    return keys.size();
+  }
+
+  private Object keyFor(FeatureMap fm) {
+    if(features.length == 0) {
+      // all features: a plain map with the same entries has the
+      // key-set/value equality semantics we need.
+      return new HashMap<Object,Object>(fm);
+    } else if(features.length == 1) {
+      return new SingleKey(fm.get(features[0]));
+    } else {
+      Object[] values = new Object[features.length];
+      for(int i=0; i<features.length; i++) {
+        values[i] = fm.get(features[i]);
+      }
+      return Arrays.asList(values);
+    }
+  }
+
+  // key for the common single feature case: avoids creating a list per
+  // candidate and allows null values.
+  private static final class SingleKey {
+    private final Object value;
+    SingleKey(Object value) {
+      this.value = value;
+    }
+    @Override
+    public boolean equals(Object other) {
+      if(!(other instanceof SingleKey)) { return false; }
+      Object otherValue = ((SingleKey)other).value;
+      return value == null ? otherValue == null : value.equals(otherValue);
+    }
+    @Override
+    public int hashCode() {
+      return value == null ? 0 : value.hashCode();
+    }
+  }
+}
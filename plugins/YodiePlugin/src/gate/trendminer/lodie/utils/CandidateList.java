@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.utils;
+
+import gate.Annotation;
+import gate.AnnotationSet;
+import gate.FeatureMap;
+import gate.util.GateRuntimeException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The candidates of a list annotation, as a primitive array of annotation ids.
+ *
+ * A CandidateList is created from the "ids" feature of a list annotation
+ * (e.g. LookupList) and keeps the ids in an int array, so that accessing 
+ * the candidates does not need any boxing. A bitset for membership checks
+ * is only built on the first call to containsId, add or removeIds, after 
+ * which checking if an id is a candidate is constant time.
+ * The methods annotations() and featureMaps() return cheap list views
+ * of the candidate annotations and their feature maps which look up the
+ * annotations in the set only when an element is accessed.
+ * <p>
+ * The add and remove methods write through to the ids feature of the list
+ * annotation, so the feature always stays in sync with what has been done
+ * through this object. Changes made directly to the ids feature after the
+ * CandidateList has been created are not seen by it, so a CandidateList
+ * should only be used for a single operation and then discarded.
+ */
+public class CandidateList {
+
+  private final AnnotationSet fromSet;
+  private final Annotation listAnn;
+  private final List<Integer> idList;
+  private int[] ids;
+  private int size;
+  // membership bits, bit i represents the annotation id base+i,
+  // null until the first membership check
+  private BitSet members;
+  private int base;
+
+  /**
+   * Create the candidate list for the given list annotation.
+   * @param fromSet the annotation set that contains the candidate annotations
+   * @param listAnn the list annotation
+   */
+  public CandidateList(AnnotationSet fromSet, Annotation listAnn) {
+    this.fromSet = fromSet;
+    this.listAnn = listAnn;
+    idList = LodieUtils.getIds(listAnn);
+    size = idList.size();
+    ids = new int[Math.max(size, 4)];
+    int i = 0;
+    for(Object idObj : idList) {
+      if(!(idObj instanceof Integer)) {
+        throw new GateRuntimeException("Non-Integer id in the ids feature of "+listAnn);
+      }
+      ids[i++] = (Integer)idObj;
+    }
+  }
+
+  // build the membership bits from the ids
+  private void buildMembers() {
+    int min = Integer.MAX_VALUE;
+    for(int i=0; i<size; i++) {
+      if(ids[i] < min) { min = ids[i]; }
+    }
+    base = (size == 0) ? 0 : min;
+    members = new BitSet();
+    for(int i=0; i<size; i++) {
+      members.set(ids[i]-base);
+    }
+  }
+
+  /**
+   * The list annotation this candidate list was created from.
+   * @return
+   */
+  public Annotation getListAnn() {
+    return listAnn;
+  }
+
+  /**
+   * The annotation set that contains the candidate annotations.
+   * @return
+   */
+  public AnnotationSet getFromSet() {
+    return fromSet;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Return the annotation id of the i-th candidate.
+   * @param i
+   * @return
+   */
+  public int getId(int i) {
+    if(i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("Index "+i+", size "+size);
+    }
+    return ids[i];
+  }
+
+  /**
+   * Return a copy of the candidate ids as an int array.
+   * @return
+   */
+  public int[] toIdArray() {
+    return Arrays.copyOf(ids, size);
+  }
+
+  /**
+   * Return true if the annotation with the given id is a candidate of this list.
+   * @param id
+   * @return
+   */
+  public boolean containsId(int id) {
+    if(members == null) {
+      buildMembers();
+    }
+    int bit = id - base;
+    return bit >= 0 && members.get(bit);
+  }
+
+  /**
+   * Return the i-th candidate annotation.
+   *
+   * This throws an exception if the id does not refer to an annotation in the set.
+   * @param i
+   * @return
+   */
+  public Annotation getAnn(int i) {
+    int id = getId(i);
+    Annotation ann = fromSet.get(id);
+    if(ann == null) {
+      throw new GateRuntimeException("List annotation refers to non-existing id "+id+": "+listAnn);
+    }
+    return ann;
+  }
+
+  /**
+   * Return the feature map of the i-th candidate annotation.
+   * @param i
+   * @return
+   */
+  public FeatureMap getFeatures(int i) {
+    return getAnn(i).getFeatures();
+  }
+
+  /**
+   * A read-only view of the candidate annotations, in the order of the ids.
+   * @return
+   */
+  public List<Annotation> annotations() {
+    return new AnnotationsView();
+  }
+
+  /**
+   * A read-only view of the candidate feature maps, in the order of the ids.
+   * @return
+   */
+  public List<FeatureMap> featureMaps() {
+    return new FeatureMapsView();
+  }
+
+  /**
+   * Add a candidate id to the end of the list, if it is not already in it.
+   *
+   * This also adds the id to the ids feature of the list annotation.
+   * @param id
+   * @return true if the id was added
+   */
+  public boolean add(int id) {
+    if(containsId(id)) {
+      return false;
+    }
+    if(size == ids.length) {
+      ids = Arrays.copyOf(ids, size*2);
+    }
+    ids[size++] = id;
+    if(id < base) {
+      // rebase the membership bits so the new id fits
+      BitSet newMembers = new BitSet();
+      for(int i=0; i<size; i++) {
+        newMembers.set(ids[i]-id);
+      }
+      members = newMembers;
+      base = id;
+    } else {
+      members.set(id-base);
+    }
+    idList.add(id);
+    return true;
+  }
+
+  /**
+   * Remove all occurrences of the candidate id from the list.
+   *
+   * This also removes the id from the ids feature of the list annotation,
+   * but does not remove the candidate annotation from the set.
+   * @param id
+   * @return true if the id was removed
+   */
+  public boolean remove(int id) {
+    return removeIds(id) > 0;
+  }
+
+  /**
+   * Remove all occurrences of all the given candidate ids from the list.
+   *
+   * This also removes the ids from the ids feature of the list annotation,
+   * but does not remove the candidate annotations from the set. This takes
+   * time linear in the size of the list, no matter how many ids get removed.
+   * @param toRemove
+   * @return the number of entries removed from the list
+   */
+  public int removeIds(int... toRemove) {
+    BitSet removeBits = new BitSet();
+    for(int id : toRemove) {
+      if(containsId(id)) {
+        removeBits.set(id-base);
+      }
+    }
+    if(removeBits.isEmpty()) {
+      return 0;
+    }
+    int j = 0;
+    for(int i=0; i<size; i++) {
+      if(!removeBits.get(ids[i]-base)) {
+        ids[j++] = ids[i];
+      }
+    }
+    int nremoved = size - j;
+    size = j;
+    members.andNot(removeBits);
+    // rebuild the feature value in one go instead of removing
+    // elements from the middle of the list one by one
+    Integer[] kept = new Integer[size];
+    int k = 0;
+    for(Iterator<Integer> it = idList.iterator(); it.hasNext(); ) {
+      Integer id = it.next();
+      if(!removeBits.get(id-base)) {
+        kept[k++] = id;
+      }
+    }
+    idList.clear();
+    idList.addAll(Arrays.asList(kept));
+    return nremoved;
+  }
+
+  @Override
+  public String toString() {
+    return "CandidateList("+Arrays.toString(toIdArray())+")";
+  }
+
+  private class AnnotationsView extends AbstractList<Annotation> implements RandomAccess {
+    @Override
+    public Annotation get(int i) {
+      return getAnn(i);
+    }
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  private class FeatureMapsView extends AbstractList<FeatureMap> implements RandomAccess {
+    @Override
+    public FeatureMap get(int i) {
+      return getAnn(i).getFeatures();
+    }
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+}
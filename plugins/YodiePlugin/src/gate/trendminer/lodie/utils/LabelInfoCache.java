@@ -0,0 +1,426 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe cache for the decoded candidate rows of labels, bounded by 
+ * the estimated number of bytes the cached rows occupy.
+ * 
+ * The cache maps a label to the list of candidate rows from the label info
+ * table. Labels which are not in the table are cached as an empty list,
+ * so they do not get looked up again either. The cached lists and rows,
+ * including all the lists and maps nested in the values of the rows, are 
+ * unmodifiable, since they are shared between all the documents and 
+ * pipelines which use the cache. Values which end up in a feature map 
+ * should be copied with copy(value), so each annotation gets its own 
+ * lists and maps.
+ * <p>
+ * Like CanonicalizationCache, the cache is split into a number of 
+ * independently locked segments, each of which evicts its least recently 
+ * used entries once its share of the size limit is exceeded.
+ * <p>
+ * Caches are normally obtained with shared(name,maxBytes), which returns the 
+ * same instance for the same name in the whole JVM, so that all duplicates
+ * of a pipeline which use the same database share one cache.
+ */
+public class LabelInfoCache {
+  
+  public static final long DEFAULT_MAX_BYTES = 128L*1024*1024;
+  
+  private static final Map<String,LabelInfoCache> SHARED = new HashMap<String,LabelInfoCache>();
+  
+  private final long maxBytes;
+  private final Segment[] segments;
+  private final int segmentMask;
+  
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  
+  /**
+   * Create a cache that holds at most about maxBytes bytes of rows.
+   * @param maxBytes 
+   */
+  public LabelInfoCache(long maxBytes) {
+    if(maxBytes < 1) {
+      throw new IllegalArgumentException("Maximum size must be at least 1 but is "+maxBytes);
+    }
+    this.maxBytes = maxBytes;
+    // a power of two number of segments, but not more than 16 and 
+    // not so many that segments would get less than 1MB
+    int nsegments = 1;
+    while(nsegments < 16 && nsegments*2*(1024L*1024) <= maxBytes) {
+      nsegments *= 2;
+    }
+    segmentMask = nsegments - 1;
+    segments = new Segment[nsegments];
+    for(int i=0; i<nsegments; i++) {
+      segments[i] = new Segment(maxBytes / nsegments + (i < maxBytes % nsegments ? 1 : 0));
+    }
+  }
+  
+  /**
+   * Return the cache with the given name shared by everything in this JVM,
+   * creating it with the given size limit if it does not exist yet.
+   * 
+   * If the cache already exists, its size limit is not changed.
+   * 
+   * @param name
+   * @param maxBytes
+   * @return 
+   */
+  public static LabelInfoCache shared(String name, long maxBytes) {
+    synchronized(SHARED) {
+      LabelInfoCache cache = SHARED.get(name);
+      if(cache == null) {
+        cache = new LabelInfoCache(maxBytes);
+        SHARED.put(name, cache);
+      }
+      return cache;
+    }
+  }
+  
+  /**
+   * Remove the shared cache with the given name, so that the next call of 
+   * shared creates a new one.
+   * @param name 
+   */
+  public static void removeShared(String name) {
+    synchronized(SHARED) {
+      SHARED.remove(name);
+    }
+  }
+  
+  /**
+   * Return the cached rows for the label, or null if the label is not 
+   * cached, and count this as a hit or miss. Labels known not to be in the
+   * table give an empty list.
+   * @param label
+   * @return 
+   */
+  public List<Map<String,Object>> get(String label) {
+    Segment segment = segmentFor(label);
+    CachedRows entry;
+    synchronized(segment) {
+      entry = segment.get(label);
+    }
+    if(entry != null) {
+      hits.incrementAndGet();
+      return entry.rows;
+    } 
+    misses.incrementAndGet();
+    return null;
+  }
+  
+  /**
+   * Return true if the label is cached, without counting a hit or miss and 
+   * without changing its position for eviction.
+   * @param label
+   * @return 
+   */
+  public boolean contains(String label) {
+    Segment segment = segmentFor(label);
+    synchronized(segment) {
+      return segment.containsKey(label);
+    }
+  }
+  
+  /**
+   * Cache the rows for the label, null or an empty list if the label is 
+   * not in the table. 
+   * 
+   * The rows are copied into unmodifiable maps, and nested lists and maps
+   * in the values into unmodifiable lists and maps. Returns the cached list, 
+   * which can be used instead of the rows passed in.
+   * 
+   * @param label
+   * @param rows
+   * @return 
+   */
+  public List<Map<String,Object>> put(String label, List<Map<String,Object>> rows) {
+    List<Map<String,Object>> frozen;
+    if(rows == null || rows.isEmpty()) {
+      frozen = Collections.emptyList();
+    } else {
+      List<Map<String,Object>> tmp = new ArrayList<Map<String,Object>>(rows.size());
+      for(Map<String,Object> row : rows) {
+        Map<String,Object> copy = new HashMap<String,Object>(row.size()*4/3+1);
+        for(Map.Entry<String,Object> e : row.entrySet()) {
+          copy.put(e.getKey(), freeze(e.getValue()));
+        }
+        tmp.add(Collections.unmodifiableMap(copy));
+      }
+      frozen = Collections.unmodifiableList(tmp);
+    }
+    CachedRows entry = new CachedRows(frozen, estimateBytes(label, frozen));
+    Segment segment = segmentFor(label);
+    synchronized(segment) {
+      segment.add(label, entry);
+    }
+    return frozen;
+  }
+  
+  // an unmodifiable deep copy of the lists and maps in the value
+  private static Object freeze(Object value) {
+    if(value instanceof List) {
+      List<Object> list = new ArrayList<Object>(((List<?>)value).size());
+      for(Object o : (List<?>)value) {
+        list.add(freeze(o));
+      }
+      return Collections.unmodifiableList(list);
+    } else if(value instanceof Map) {
+      Map<Object,Object> map = new LinkedHashMap<Object,Object>();
+      for(Map.Entry<?,?> e : ((Map<?,?>)value).entrySet()) {
+        map.put(e.getKey(), freeze(e.getValue()));
+      }
+      return Collections.unmodifiableMap(map);
+    }
+    return value;
+  }
+  
+  /**
+   * A modifiable deep copy of the lists and maps in a value of a cached row.
+   * 
+   * Other values are immutable and returned as they are.
+   * @param value
+   * @return 
+   */
+  public static Object copy(Object value) {
+    if(value instanceof List) {
+      List<Object> list = new ArrayList<Object>(((List<?>)value).size());
+      for(Object o : (List<?>)value) {
+        list.add(copy(o));
+      }
+      return list;
+    } else if(value instanceof Map) {
+      Map<Object,Object> map = new LinkedHashMap<Object,Object>();
+      for(Map.Entry<?,?> e : ((Map<?,?>)value).entrySet()) {
+        map.put(e.getKey(), copy(e.getValue()));
+      }
+      return map;
+    }
+    return value;
+  }
+  
+  /**
+   * Return true if the cache has reached its size limit, so that adding 
+   * more entries will evict others.
+   * @return 
+   */
+  public boolean isFull() {
+    return getBytes() >= maxBytes;
+  }
+  
+  private Segment segmentFor(String label) {
+    int h = label.hashCode();
+    // spread the higher bits since the segment is chosen by the lowest bits
+    h ^= (h >>> 16);
+    return segments[h & segmentMask];
+  }
+  
+  /**
+   * Estimate the number of bytes the cache entry for the label with the
+   * given rows occupies on a 64 bit JVM with compressed pointers.
+   * Field names are not counted since the JSON decoder interns them.
+   * @param label
+   * @param rows
+   * @return 
+   */
+  static long estimateBytes(String label, List<Map<String,Object>> rows) {
+    // map entry, entry object and the label string
+    long bytes = 32 + 24 + estimateBytes(label);
+    if(!rows.isEmpty()) {
+      // list and its array
+      bytes += 16 + 16 + 4*rows.size();
+      for(Map<String,Object> row : rows) {
+        // unmodifiable wrapper, hash map, table and entries
+        bytes += 16 + 48 + 8*row.size() + 32*row.size();
+        for(Object value : row.values()) {
+          bytes += estimateBytes(value);
+        }
+      }
+    }
+    return bytes;
+  }
+  
+  private static long estimateBytes(Object value) {
+    if(value == null || value instanceof Boolean) {
+      return 0;
+    } else if(value instanceof String) {
+      return 40 + 2*((String)value).length();
+    } else if(value instanceof Number) {
+      return 24;
+    } else if(value instanceof List) {
+      // unmodifiable wrapper and list
+      long bytes = 16 + 40;
+      for(Object o : (List<?>)value) {
+        bytes += 4 + estimateBytes(o);
+      }
+      return bytes;
+    } else if(value instanceof Map) {
+      // unmodifiable wrapper and map
+      long bytes = 16 + 48;
+      for(Object o : ((Map<?,?>)value).values()) {
+        bytes += 40 + estimateBytes(o);
+      }
+      return bytes;
+    }
+    return 32;
+  }
+  
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+  
+  /**
+   * Number of lookups answered from the cache.
+   * @return 
+   */
+  public long getHits() {
+    return hits.get();
+  }
+  
+  /**
+   * Number of lookups of labels which were not cached.
+   * @return 
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+  
+  /**
+   * Fraction of lookups answered from the cache, 0.0 if there were none.
+   * @return 
+   */
+  public double getHitRate() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0.0 : (double)h / total;
+  }
+  
+  /**
+   * Number of entries removed to make room for new ones.
+   * @return 
+   */
+  public long getEvictions() {
+    return evictions.get();
+  }
+  
+  /**
+   * Estimated number of bytes of all cached entries.
+   * @return 
+   */
+  public long getBytes() {
+    long n = 0;
+    for(Segment segment : segments) {
+      synchronized(segment) {
+        n += segment.bytes;
+      }
+    }
+    return n;
+  }
+  
+  /**
+   * Number of labels currently in the cache.
+   * @return 
+   */
+  public int size() {
+    int n = 0;
+    for(Segment segment : segments) {
+      synchronized(segment) {
+        n += segment.size();
+      }
+    }
+    return n;
+  }
+  
+  /**
+   * Remove all entries and reset the counters.
+   */
+  public void clear() {
+    for(Segment segment : segments) {
+      synchronized(segment) {
+        segment.clear();
+        segment.bytes = 0;
+      }
+    }
+    hits.set(0);
+    misses.set(0);
+    evictions.set(0);
+  }
+  
+  @Override
+  public String toString() {
+    return "LabelInfoCache(maxBytes="+maxBytes+",bytes="+getBytes()+
+            ",size="+size()+",hits="+getHits()+",misses="+getMisses()+
+            ",hitRate="+String.format("%.4f", getHitRate())+
+            ",evictions="+getEvictions()+")";
+  }
+  
+  private static final class CachedRows {
+    final List<Map<String,Object>> rows;
+    final long bytes;
+    CachedRows(List<Map<String,Object>> rows, long bytes) {
+      this.rows = rows;
+      this.bytes = bytes;
+    }
+  }
+  
+  private class Segment extends LinkedHashMap<String,CachedRows> {
+    private static final long serialVersionUID = 1L;
+    private final long segmentMaxBytes;
+    long bytes = 0;
+    Segment(long segmentMaxBytes) {
+      super(16, 0.75f, true);
+      this.segmentMaxBytes = segmentMaxBytes;
+    }
+    void add(String label, CachedRows entry) {
+      if(entry.bytes > segmentMaxBytes) {
+        // would evict everything else and still not fit
+        return;
+      }
+      CachedRows old = put(label, entry);
+      bytes += entry.bytes;
+      if(old != null) {
+        bytes -= old.bytes;
+      }
+      Iterator<CachedRows> it = values().iterator();
+      while(bytes > segmentMaxBytes && it.hasNext()) {
+        CachedRows eldest = it.next();
+        if(eldest == entry) {
+          continue;
+        }
+        it.remove();
+        bytes -= eldest.bytes;
+        evictions.incrementAndGet();
+      }
+    }
+  }
+  
+}
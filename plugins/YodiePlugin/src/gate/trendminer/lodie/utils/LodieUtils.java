@@ -24,6 +24,7 @@ import gate.*;
 import gate.annotation.ImmutableAnnotationSetImpl;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -35,12 +36,10 @@ import java.net.URISyntaxException;
 import java.util.Arrays;
 import org.apache.commons.lang.StringEscapeUtils;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Locale;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -88,14 +87,29 @@ public class LodieUtils {
    * @return an AnnotationSet of all the Lookup annotations listed 
    */
   public static AnnotationSet getCandidateAnns(AnnotationSet fromSet, Annotation lookupList) {
-    List<Integer> ids = getIds(lookupList);
-    Set<Annotation> cands = new HashSet<Annotation>();
-    for(Integer id : ids) {
-      cands.add(fromSet.get(id));
+    CandidateList candList = getCandidates(fromSet, lookupList);
+    Set<Annotation> cands = new HashSet<Annotation>(candList.size()*2);
+    for(int i=0; i<candList.size(); i++) {
+      cands.add(fromSet.get(candList.getId(i)));
     }
     return new ImmutableAnnotationSetImpl(fromSet.getDocument(), cands);
   }
 
+  /**
+   * Get the candidates of a LookupList as a CandidateList.
+   * 
+   * This is cheaper than getCandidateAnns or getCandidateList since it does not
+   * create a new annotation set or list, the candidate annotations and feature maps
+   * can be accessed through the views returned by the CandidateList.
+   * 
+   * @param fromSet: the annotation set that contains the Lookup annotations
+   * @param lookupList: the annotation that contains the list of Lookup ids
+   * @return the CandidateList for the list annotation
+   */
+  public static CandidateList getCandidates(AnnotationSet fromSet, Annotation lookupList) {
+    return new CandidateList(fromSet, lookupList);
+  }
+
   /**
    * Get a list of feature maps of all candidates for a LookupList
    * 
@@ -104,16 +118,7 @@ public class LodieUtils {
    * @return an List of all the feature maps from the Lookup annotations listed 
    */
   public static List<FeatureMap> getCandidateList(AnnotationSet fromSet, Annotation lookupList) {
-    List<Integer> ids = getIds(lookupList);
-    List<FeatureMap> cands = new ArrayList<FeatureMap>();
-    for(Integer id : ids) {      
-      Annotation ann = fromSet.get(id);
-      if(ann == null) {
-        throw new GateRuntimeException("List annotation refers to non-existing id "+id+": "+lookupList);
-      }
-      cands.add(ann.getFeatures());
-    }
-    return cands;
+    return new ArrayList<FeatureMap>(getCandidates(fromSet, lookupList).featureMaps());
   }
 
 
@@ -132,11 +137,12 @@ public class LodieUtils {
    * @param features: one or more features to use for matching, at least one required
    */
   public static int keepCandidatesByCollection(Collection<FeatureMap> origCandidates, Collection<FeatureMap> keepCandidates, String... features) {
+    CandidateKeyIndex keepIndex = new CandidateKeyIndex(keepCandidates, features);
     Iterator<FeatureMap> it = origCandidates.iterator();
     int nremoved = 0;
     while (it.hasNext()) {
       FeatureMap fm = it.next();
-      if (!hasMatchingCandidate(keepCandidates, fm, features)) {
+      if (!keepIndex.contains(fm)) {
         it.remove();
         nremoved++;
       }
@@ -160,9 +166,10 @@ public class LodieUtils {
     List<FeatureMap> ret = new ArrayList<FeatureMap>();    
     Iterator<FeatureMap> it = cands1.size() < cands2.size() ? cands1.iterator() : cands2.iterator();
     Collection<FeatureMap> other = cands1.size() < cands2.size() ? cands2 : cands1;
+    CandidateKeyIndex otherIndex = new CandidateKeyIndex(other, features);
     while (it.hasNext()) {
       FeatureMap fm = it.next();
-      if (hasMatchingCandidate(other, fm, features)) {
+      if (otherIndex.contains(fm)) {
         FeatureMap newfm = Factory.newFeatureMap();
         newfm.putAll(fm);
         ret.add(newfm);
@@ -203,8 +210,9 @@ public class LodieUtils {
   public static List<FeatureMap> unionCandidates(Collection<FeatureMap> cands1, Collection<FeatureMap> cands2, String... features) {
     List<FeatureMap> ret = new ArrayList<FeatureMap>();    
     ret.addAll(cands1);
+    CandidateKeyIndex index1 = new CandidateKeyIndex(cands1, features);
     for(FeatureMap fm : cands2) {
-      if (!hasMatchingCandidate(cands1, fm, features)) {
+      if (!index1.contains(fm)) {
         FeatureMap newfm = Factory.newFeatureMap();
         newfm.putAll(fm);
         ret.add(newfm);
@@ -244,51 +252,52 @@ public class LodieUtils {
    */
   public static void mergeListAnns(AnnotationSet set, Annotation toAnn, Annotation fromAnn,
           boolean byFeatures, String... features) {
-    // TODO: this does not check if the ids features really is a list
-    // and it does not check if it really is a list of Integer 
-    @SuppressWarnings("unchecked")
-    List<Integer> toIdList = (List<Integer>)toAnn.getFeatures().get(IDS);
-    List<FeatureMap> toCandList = getCandidateList(set, toAnn);
-    @SuppressWarnings("unchecked")
-    List<Integer> fromIdList = (List<Integer>)fromAnn.getFeatures().get(IDS);
+    CandidateList toCands = getCandidates(set, toAnn);
+    CandidateKeyIndex toCandIndex = null;
+    if(byFeatures) {
+      toCandIndex = new CandidateKeyIndex(toCands.featureMaps(), features);
+    }
+    CandidateList fromCands = getCandidates(set, fromAnn);
     Set<Annotation> toRemove = new HashSet<Annotation>();
-    Set<Integer> toRemoveIds = new HashSet<Integer>();
-    for(int id : fromIdList) {
+    int[] toRemoveIds = new int[fromCands.size()];
+    int nToRemoveIds = 0;
+    for(int i=0; i<fromCands.size(); i++) {
+      int id = fromCands.getId(i);
       //logger.info("Checking id "+id);
       // if the id is not in the to list, consider it for adding
-      if(!toIdList.contains(id)) {
+      if(!toCands.containsId(id)) {
         // if we need to check the features, check those too
         Annotation ann = set.get(id);
         if(byFeatures) {  // we need to check the features too
-          if(!hasMatchingCandidate(toCandList, ann.getFeatures(), features)) {
+          if(!toCandIndex.contains(ann.getFeatures())) {
             //logger.info("Not in target and not equal, adding to destination "+id);
             // ok, we are safe to add it
-            toIdList.add(id);
+            toCands.add(id);
           } else {
             // this is an id not in the to annotation but we do not want to 
             // add it, so we need to remove that annotation and remove
             // the id from the list
             toRemove.add(ann);
-            toRemoveIds.add(id);
+            toRemoveIds[nToRemoveIds++] = id;
             //logger.info("Not in target but equal, removing: "+id);
           }
         } else {
           // we do not need to check by features and are thus save to merge
           //logger.info("Not in target, not checking for equal, adding to destination: "+id);
-          toIdList.add(id);
+          toCands.add(id);
         }
       } else {
         // this id is present in the to set, so the same annotation is contained
         // in both lists. Since we keep the annotation, just do nothing
         //logger.info("Id is in the target: "+id);
-        toRemoveIds.add(id);
+        toRemoveIds[nToRemoveIds++] = id;
       }
       //logger.info("toIdList="+toIdList);
     }
     // actually remove the annotations we want to remove
     set.removeAll(toRemove);
     //logger.info("after remove, toIdList="+toIdList);
-    fromIdList.removeAll(toRemoveIds);
+    fromCands.removeIds(Arrays.copyOf(toRemoveIds, nToRemoveIds));
     // copy all the annotations from -> to. This will NOT overwrite anything that
     // was already there!!
     FeatureMap toFm = toAnn.getFeatures();
@@ -312,6 +321,9 @@ public class LodieUtils {
    * If no feature is given, all the features in the candidate feature map
    * must match all the features in the map from toBeSearched and there 
    * may be no additional features in either map.
+   * <p>
+   * NOTE: this does a linear scan of the collection, when checking many 
+   * candidates against the same collection, use a CandidateKeyIndex instead.
    * 
    * @param toBeSearched
    * @param candidate
@@ -330,9 +342,13 @@ public class LodieUtils {
   
   /**
    * Returns true if the given id is the id of a candidate for that list annotation.
+   *
+   * This is a linear scan of the ids feature, which is the cheapest way to
+   * check a single id. When checking many ids against the same list
+   * annotation, use getCandidates(..).containsId(id) instead.
    * @param listAnn
    * @param candidateId
-   * @return 
+   * @return
    */
   public static boolean hasCandidateAnn(Annotation listAnn, int candidateId) {
     boolean ret = false;
@@ -398,10 +414,10 @@ public class LodieUtils {
    * @param listAnn 
    */
   public static int removeListAnns(AnnotationSet fromSet, Annotation listAnn) {
-    List<Integer> ids = getIds(listAnn);
+    CandidateList cands = getCandidates(fromSet, listAnn);
     int nremoved = 0;
-    for(Integer id : ids) {
-      fromSet.remove(fromSet.get(id));
+    for(int i=0; i<cands.size(); i++) {
+      fromSet.remove(fromSet.get(cands.getId(i)));
       nremoved++;
     }
     fromSet.remove(listAnn);
@@ -439,18 +455,10 @@ public class LodieUtils {
       listAnn = fromSet.get(listId);
     }
     int candId = candidate.getId();
-    List<Integer> ids = getIds(listAnn);
-    Iterator<Integer> it = ids.iterator();
-    boolean removedSomething = false;
-    while(it.hasNext()) {
-      Integer id = it.next();
-      if(id == candId) {
-        removedSomething = true;
-        it.remove();
-        fromSet.remove(candidate);
-      }
-    }
-    if(!removedSomething) {
+    boolean removedSomething = getCandidates(fromSet, listAnn).remove(candId);
+    if(removedSomething) {
+      fromSet.remove(candidate);
+    } else {
       throw new GateRuntimeException("Candidate removal did not succeed for candidate "+candidate);
     }
     return 1;
@@ -471,24 +479,22 @@ public class LodieUtils {
   // TODO check the semantics of FeatureMap.equals()!!!
   public static int keepCandidateAnnsByCollection(AnnotationSet fromSet,
           Annotation lookupList, Collection<FeatureMap> filterCandidates, String... features) {
-    List<?> ids = (List<?>) lookupList.getFeatures().get(IDS);
+    CandidateList cands = getCandidates(fromSet, lookupList);
+    CandidateKeyIndex filterIndex = new CandidateKeyIndex(filterCandidates, features);
     int nremoved = 0;
-    Iterator<?> it = ids.iterator();
-    while (it.hasNext()) {
-      Object idObj = it.next();
-      if (idObj instanceof Integer) {
-        int id = (Integer) idObj;
-        Annotation theLookup = fromSet.get(id);
-        FeatureMap fm = theLookup.getFeatures();
-        if (!hasMatchingCandidate(filterCandidates, fm, features)) {
-          fromSet.remove(theLookup);
-          it.remove();
-          nremoved++;
-        }
-      } else {
-        throw new GateRuntimeException("Non-Integer id in the ids feature of " + lookupList);
+    // collect the ids to remove and update the id list once at the end,
+    // removing from the middle of an ArrayList for each id would be quadratic
+    int[] removedIds = new int[cands.size()];
+    for(int i=0; i<cands.size(); i++) {
+      Annotation theLookup = cands.getAnn(i);
+      if (!filterIndex.contains(theLookup.getFeatures())) {
+        fromSet.remove(theLookup);
+        removedIds[nremoved++] = cands.getId(i);
       }
     }
+    if(nremoved > 0) {
+      cands.removeIds(Arrays.copyOf(removedIds, nremoved));
+    }
     return nremoved;
   }
 
@@ -527,19 +533,10 @@ public class LodieUtils {
     log.println(message);
     Document doc = fromSet.getDocument();
     log.println("  - text="+gate.Utils.cleanStringFor(doc, listAnn));
-    FeatureMap fm = listAnn.getFeatures();
-    List<?> ids = (List<?>)fm.get(IDS);
-    List<FeatureMap> cands = new ArrayList<FeatureMap>();
-    int n = 0;
-    for(Object idObj : ids) {
-      n++;
-      if(idObj instanceof Integer) {
-        Annotation cand = fromSet.get((Integer)idObj);
-        FeatureMap cfm = cand.getFeatures();
-        log.println("  - cand."+n+"="+toStringFeatureMap(cfm,features));
-      } else {
-        throw new GateRuntimeException("Non-Integer id in the ids feature of "+listAnn);
-      }
+    CandidateList cands = getCandidates(fromSet, listAnn);
+    for(int i=0; i<cands.size(); i++) {
+      FeatureMap cfm = fromSet.get(cands.getId(i)).getFeatures();
+      log.println("  - cand."+(i+1)+"="+toStringFeatureMap(cfm,features));
     }
     
   }
@@ -566,10 +563,9 @@ public class LodieUtils {
     newListFm.put(IDS,newIds);
     int newId = Utils.addAnn(targetSet, targetAnn, listAnn.getType(), newListFm);
     // create clones of all the referenced annotations
-    @SuppressWarnings("unchecked")
-    List<Integer> oldIds = (List<Integer>)oldListFm.get(IDS);
-    for(int oldId : oldIds) {
-      Annotation oldAnn = listSet.get(oldId);
+    CandidateList oldCands = getCandidates(listSet, listAnn);
+    for(int i=0; i<oldCands.size(); i++) {
+      Annotation oldAnn = listSet.get(oldCands.getId(i));
       FeatureMap newAnnFm = Utils.toFeatureMap(oldAnn.getFeatures());
       int id = Utils.addAnn(targetSet, targetAnn, oldAnn.getType(), newAnnFm);
       newIds.add(id);
@@ -703,6 +699,11 @@ public class LodieUtils {
    * to skip that part and just percent-encode.
    * </ul>
    * NOTE: we always ignore any userInfo or port parts!
+   * <p>
+   * Strings which are already in canonical form and only consist of ASCII
+   * characters which never get changed by the recoding (which is the case for 
+   * most shortened URIs) are recognized by a quick scan and returned unchanged,
+   * without going through the URI parsing.
    */
   // NOTE: check if https://code.google.com/p/gdata-java-client/source/browse/trunk/java/src/com/google/gdata/util/common/base/CharEscapers.java
   // is helpful at all.
@@ -713,6 +714,9 @@ public class LodieUtils {
     if(uriString == null || uriString.trim().isEmpty()) {
       return "";
     }
+    if(isCanonicalAsciiUri(uriString)) {
+      return uriString;
+    }
     if(uriString.contains("\\u")) {
       uriString = StringEscapeUtils.unescapeJava(uriString);
     }
@@ -730,7 +734,7 @@ public class LodieUtils {
       } else {
         // must be just some resource sting, add dummy base URI
         uriString = uriString.trim();
-        uriString = uriString.replaceAll(" +", "_");
+        uriString = replaceSpaces(uriString);
         uriString = dummyURI + uriString;
       }
       hasDummyUri = true;
@@ -741,8 +745,8 @@ public class LodieUtils {
       // percent-encodings can get decoded later
       // However, we have to already make sure that some characters which
       // would cause and exception are properly percent encoded
-      uriString = encodeCharsIn(DBP38Encoded+":",uriString);
-      uriString = uriString.replaceAll(" +","_");
+      uriString = encodeCharsIn(DBP38EncodedColon,uriString);
+      uriString = replaceSpaces(uriString);
       try {
         uri = new URI(uriString);
       } catch(Exception ex) {
@@ -774,7 +778,7 @@ public class LodieUtils {
       // However if we %-encode the colon, there is another problem:
       // for example: 
       try {
-        uri = new URI(encodeCharsIn(DBP38Encoded+":",uriString));
+        uri = new URI(encodeCharsIn(DBP38EncodedColon,uriString));
         // decode and prepare for minimal percent encoding
         uriString = uri.getPath();
       } catch (URISyntaxException ex) {
@@ -812,6 +816,7 @@ public class LodieUtils {
   }
   public static String DBP38Encoded =
           "\"#%<>?[\\]^`{|}";
+  private static final String DBP38EncodedColon = DBP38Encoded + ":";
   public static String DBP37Encoded =
           "!\"#$%'()+;<=>?@[\\]^`{|}~";
   
@@ -822,13 +827,71 @@ public class LodieUtils {
   private static final Pattern nameSpacePrefix = Pattern.compile("^([a-zA-Z_-]+:)(?!//)");
   private static final String dummyURI = "http://X1kldd.com/";
   
-  public static String shortenUri(String uri) {
-    for(String prefix : base2ns.keySet()) {
-      if(uri.startsWith(prefix)) { 
-        return base2ns.get(prefix)+uri.substring(prefix.length());
+  private static final Pattern spaces = Pattern.compile(" +");
+  
+  // same as s.replaceAll(" +","_") but without compiling the pattern each time
+  private static String replaceSpaces(String s) {
+    if(s.indexOf(' ') < 0) {
+      return s;
+    }
+    return spaces.matcher(s).replaceAll("_");
+  }
+  
+  // ASCII characters which recodeUri never changes in a name space prefixed
+  // or plain resource name. This deliberately excludes the space, the percent
+  // character and all characters in DBP38Encoded.
+  private static final boolean[] canonicalUriChars = new boolean[128];
+  static {
+    String chars = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789" + 
+            "_-.~!$&'()*+,;=@/:";
+    for(int i=0; i<chars.length(); i++) {
+      canonicalUriChars[chars.charAt(i)] = true;
+    }
+  }
+  
+  /**
+   * Return true if recodeUri is guaranteed to return the string unchanged.
+   * 
+   * This is the case for non-empty strings which do not start with one of the
+   * schemes recodeUri treats as full URIs and which only contain ASCII letters,
+   * digits and the characters _-.~!$&amp;'()*+,;=@/: 
+   * 
+   * @param uriString
+   * @return 
+   */
+  public static boolean isCanonicalAsciiUri(String uriString) {
+    int len = uriString.length();
+    if(len == 0) {
+      return false;
+    }
+    for(int i=0; i<len; i++) {
+      char c = uriString.charAt(i);
+      if(c >= 128 || !canonicalUriChars[c]) {
+        return false;
       }
     }
-    return uri;
+    return !(uriString.startsWith("http://") || uriString.startsWith("https://") || 
+             uriString.startsWith("ftp://") || uriString.startsWith("file://"));
+  }
+  
+  /**
+   * This replaces a known base URI by its NS prefix.
+   * For example http://dbpedia.org/resource/Rain gets shortened to dbpedia:Rain.
+   * If several base URIs match, the first in base2ns is used.
+   * @param uri
+   * @return 
+   */
+  public static String shortenUri(String uri) {
+    return uriShortener.map(uri);
+  }
+  
+  /**
+   * Shorten all the URIs in the array, see shortenUri.
+   * @param uris
+   * @return a new array with the shortened URIs
+   */
+  public static String[] shortenUris(String... uris) {
+    return uriShortener.mapAll(uris);
   }
   
   /**
@@ -840,66 +903,87 @@ public class LodieUtils {
    * @return 
    */
   public static String expandUri(String uri) {
-    for(String ns : ns2base.keySet()) {
-      if(uri.startsWith(ns)) { 
-        return ns2base.get(ns)+uri.substring(ns.length());
-      }
-    }
-    return uri;    
+    return uriExpander.map(uri);
+  }
+  
+  /**
+   * Expand all the URIs in the array, see expandUri.
+   * @param uris
+   * @return a new array with the expanded URIs
+   */
+  public static String[] expandUris(String... uris) {
+    return uriExpander.mapAll(uris);
   }
   
-  public static final Map<String,String> base2ns = new LinkedHashMap<String, String>();
-  public static final Map<String,String> ns2base = new HashMap<String,String>();
+  /**
+   * The known base URIs and their NS prefixes, in the order in which they are checked.
+   * NOTE: this map and ns2base are unmodifiable since shortenUri and expandUri use 
+   * versions of them that are compiled once in the static initializer.
+   */
+  public static final Map<String,String> base2ns;
+  public static final Map<String,String> ns2base;
+  /**
+   * The prefix mappers used by shortenUri and expandUri, they can be used directly
+   * for shortening or expanding many URIs.
+   */
+  public static final UriPrefixMapper uriShortener;
+  public static final UriPrefixMapper uriExpander;
   static {
+    Map<String,String> b2n = new LinkedHashMap<String, String>();
+    Map<String,String> n2b = new LinkedHashMap<String,String>();
     // we use the prefixes as used by most dbpedia endpoints, correcting some inconsistencies
     // see http://dbpedia-live.openlinksw.com/sparql?nsdecl
     // see http://de.dbpedia.org/sparql?nsdecl
     // see http://es.dbpedia.org/sparql?nsdecl
     // NOTE: the order is significant because some base URIs are prefixes of others and we 
     // need to first check the longer of the two.
-    base2ns.put("http://dbpedia.org/resource/Category:", "category-en:");
-    base2ns.put("http://de.dbpedia.org/resource/Kategorie:", "category-de:");
-    base2ns.put("http://es.dbpedia.org/resource/Categoría:", "category-es:");
-    base2ns.put("http://bg.dbpedia.org/resource/Категория:", "category-bg:");
-    base2ns.put("http://fr.dbpedia.org/resource/Catégorie:", "category-fr:");
-    base2ns.put("http://it.dbpedia.org/resource/Categoria:", "category-it:");
-    base2ns.put("http://ja.dbpedia.org/resource/Category:", "category-ja:");
-    base2ns.put("http://nl.dbpedia.org/resource/Categorie:", "category-nl");
-    base2ns.put("http://ru.dbpedia.org/resource/Категория:", "category-ru:");
-    base2ns.put("http://zh.dbpedia.org/resource/Category:", "category-zh:");
-    base2ns.put("http://dbpedia.org/resource/", "dbpedia:");
-    base2ns.put("http://de.dbpedia.org/resource/", "dbpedia-de:");
-    base2ns.put("http://es.dbpedia.org/resource/", "dbpedia-es:");
-    base2ns.put("http://bg.dbpedia.org/resource/", "dbpedia-bg:");
-    base2ns.put("http://fr.dbpedia.org/resource/", "dbpedia-fr:");
-    base2ns.put("http://nl.dbpedia.org/resource/", "dbpedia-nl:");
-    base2ns.put("http://ru.dbpedia.org/resource/", "dbpedia-ru:");
-    base2ns.put("http://ja.dbpedia.org/resource/", "dbpedia-ja:");
-    base2ns.put("http://zh.dbpedia.org/resource/", "dbpedia-zh:");
-    base2ns.put("http://it.dbpedia.org/resource/", "dbpedia-it:");
-    base2ns.put("http://dbpedia.org/ontology/", "dbpedia-owl:");
-    base2ns.put("http://dbpedia.org/property/", "dbprop:");
-    base2ns.put("http://de.dbpedia.org/property/", "prop-de:");
-    base2ns.put("http://www.w3.org/2002/07/owl#", "owl:");
-    base2ns.put("http://www.w3.org/1999/02/22-rdf-syntax-ns#", "rdf:");
-    base2ns.put("http://www.w3.org/2000/01/rdf-schema#", "rdfs:");
-    base2ns.put("http://xmlns.com/foaf/0.1/", "foaf:");
-    base2ns.put("http://www.w3.org/2004/02/skos/core#", "skos:");
-    base2ns.put("http://mpii.de/yago/resource/", "yago:");
-    base2ns.put("http://purl.org/dc/elements/1.1/", "purl-el:");
-    base2ns.put("http://purl.org/dc/terms/", "purl-te:");
-    base2ns.put("http://purl.org/ontology/bibo/", "purlo-bibo:");
-    base2ns.put("http://airpedia.org/ontology/type_with_conf#","airp-type-conf:");
-    base2ns.put("http://www.wikidata.org/entity/", "wikidata:");
-    base2ns.put("http://schema.org/", "schema:");
-    base2ns.put("http://www.ontologydesignpatterns.org/ont/dul/DUL.owl#", "odp-dul:");
-    base2ns.put("http://www.w3.org/ns/prov/", "prov:");
-    base2ns.put("http://www.w3.org/ns/prov-o/", "prov-o:");
-    base2ns.put("http://www.ontologydesignpatterns.org/ont/d0.owl#", "odp-d0:");
+    b2n.put("http://dbpedia.org/resource/Category:", "category-en:");
+    b2n.put("http://de.dbpedia.org/resource/Kategorie:", "category-de:");
+    b2n.put("http://es.dbpedia.org/resource/Categoría:", "category-es:");
+    b2n.put("http://bg.dbpedia.org/resource/Категория:", "category-bg:");
+    b2n.put("http://fr.dbpedia.org/resource/Catégorie:", "category-fr:");
+    b2n.put("http://it.dbpedia.org/resource/Categoria:", "category-it:");
+    b2n.put("http://ja.dbpedia.org/resource/Category:", "category-ja:");
+    b2n.put("http://nl.dbpedia.org/resource/Categorie:", "category-nl");
+    b2n.put("http://ru.dbpedia.org/resource/Категория:", "category-ru:");
+    b2n.put("http://zh.dbpedia.org/resource/Category:", "category-zh:");
+    b2n.put("http://dbpedia.org/resource/", "dbpedia:");
+    b2n.put("http://de.dbpedia.org/resource/", "dbpedia-de:");
+    b2n.put("http://es.dbpedia.org/resource/", "dbpedia-es:");
+    b2n.put("http://bg.dbpedia.org/resource/", "dbpedia-bg:");
+    b2n.put("http://fr.dbpedia.org/resource/", "dbpedia-fr:");
+    b2n.put("http://nl.dbpedia.org/resource/", "dbpedia-nl:");
+    b2n.put("http://ru.dbpedia.org/resource/", "dbpedia-ru:");
+    b2n.put("http://ja.dbpedia.org/resource/", "dbpedia-ja:");
+    b2n.put("http://zh.dbpedia.org/resource/", "dbpedia-zh:");
+    b2n.put("http://it.dbpedia.org/resource/", "dbpedia-it:");
+    b2n.put("http://dbpedia.org/ontology/", "dbpedia-owl:");
+    b2n.put("http://dbpedia.org/property/", "dbprop:");
+    b2n.put("http://de.dbpedia.org/property/", "prop-de:");
+    b2n.put("http://www.w3.org/2002/07/owl#", "owl:");
+    b2n.put("http://www.w3.org/1999/02/22-rdf-syntax-ns#", "rdf:");
+    b2n.put("http://www.w3.org/2000/01/rdf-schema#", "rdfs:");
+    b2n.put("http://xmlns.com/foaf/0.1/", "foaf:");
+    b2n.put("http://www.w3.org/2004/02/skos/core#", "skos:");
+    b2n.put("http://mpii.de/yago/resource/", "yago:");
+    b2n.put("http://purl.org/dc/elements/1.1/", "purl-el:");
+    b2n.put("http://purl.org/dc/terms/", "purl-te:");
+    b2n.put("http://purl.org/ontology/bibo/", "purlo-bibo:");
+    b2n.put("http://airpedia.org/ontology/type_with_conf#","airp-type-conf:");
+    b2n.put("http://www.wikidata.org/entity/", "wikidata:");
+    b2n.put("http://schema.org/", "schema:");
+    b2n.put("http://www.ontologydesignpatterns.org/ont/dul/DUL.owl#", "odp-dul:");
+    b2n.put("http://www.w3.org/ns/prov/", "prov:");
+    b2n.put("http://www.w3.org/ns/prov-o/", "prov-o:");
+    b2n.put("http://www.ontologydesignpatterns.org/ont/d0.owl#", "odp-d0:");
     // automatically create the other map
-    for(String key : base2ns.keySet()) {
-      ns2base.put(base2ns.get(key), key);
+    for(String key : b2n.keySet()) {
+      n2b.put(b2n.get(key), key);
     }
+    base2ns = Collections.unmodifiableMap(b2n);
+    ns2base = Collections.unmodifiableMap(n2b);
+    uriShortener = new UriPrefixMapper(base2ns);
+    uriExpander = new UriPrefixMapper(ns2base);
   }
   
   /**
@@ -944,17 +1028,24 @@ public class LodieUtils {
    * @return 
    */
   public static String encodeCharsIn(String charsToReplace, String stringToEncode) {
-    StringBuilder sb = new StringBuilder();
-    
-    char[] chars = stringToEncode.toCharArray();
-    for(int i = 0; i < chars.length; i++) {
-      char c = chars[i];
-      if(charsToReplace.indexOf(c) >= 0) {
+    CharSet toReplace = CharSet.forChars(charsToReplace);
+    int len = stringToEncode.length();
+    // find the first character we need to encode, if there is none, we are done
+    int first = 0;
+    while(first < len && !needsEncoding(toReplace, stringToEncode, first)) {
+      first++;
+    }
+    if(first == len) {
+      return stringToEncode;
+    }
+    StringBuilder sb = new StringBuilder(len + 16);
+    sb.append(stringToEncode, 0, first);
+    for(int i = first; i < len; i++) {
+      char c = stringToEncode.charAt(i);
+      if(toReplace.contains(c)) {
         // check if we have a percent character and if it is followed by 
         // at least two hex characters: in that case, do not percent encode
-        if(c == '%' && i < (chars.length-2) && 
-                hexChars.indexOf(Character.toUpperCase(chars[i+1])) >= 0 && 
-                hexChars.indexOf(Character.toUpperCase(chars[i+2])) >= 0) {
+        if(c == '%' && isPercentEscape(stringToEncode, i)) {
           // just append the percent character
           sb.append(c);
         } else {
@@ -977,6 +1068,66 @@ public class LodieUtils {
     return sb.toString();
   }
   
+  private static boolean needsEncoding(CharSet toReplace, String s, int i) {
+    char c = s.charAt(i);
+    return toReplace.contains(c) && !(c == '%' && isPercentEscape(s, i));
+  }
+  
+  // true if the percent character at i is followed by two hex characters
+  // (but not if those are the last two characters of the string)
+  private static boolean isPercentEscape(String s, int i) {
+    return i < (s.length()-2) && isHexChar(s.charAt(i+1)) && isHexChar(s.charAt(i+2));
+  }
+  
+  private static boolean isHexChar(char c) {
+    return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'F') || (c >= 'a' && c <= 'f');
+  }
+  
+  /**
+   * The set of characters to encode, as a bit table for the first 256 characters.
+   * The set for the last string used is cached, since almost always the same
+   * set of characters is used.
+   */
+  private static final class CharSet {
+    private final String chars;
+    private final long[] bits = new long[4];
+    // characters beyond 0xFF, which are rare and just checked with indexOf
+    private final String highChars;
+    
+    private static volatile CharSet last = new CharSet(DBP38EncodedColon);
+    
+    static CharSet forChars(String chars) {
+      CharSet cs = last;
+      if(cs.chars.equals(chars)) {
+        return cs;
+      }
+      cs = new CharSet(chars);
+      last = cs;
+      return cs;
+    }
+    
+    private CharSet(String chars) {
+      this.chars = chars;
+      StringBuilder high = new StringBuilder();
+      for(int i=0; i<chars.length(); i++) {
+        char c = chars.charAt(i);
+        if(c < 256) {
+          bits[c >> 6] |= 1L << (c & 63);
+        } else {
+          high.append(c);
+        }
+      }
+      highChars = high.toString();
+    }
+    
+    boolean contains(char c) {
+      if(c < 256) {
+        return (bits[c >> 6] & (1L << (c & 63))) != 0;
+      }
+      return highChars.length() > 0 && highChars.indexOf(c) >= 0;
+    }
+  }
+  
     
    /// TODO: below this, there are just some not yet implemented 
     /// method declarations for what may be useful to have.
@@ -990,6 +1141,7 @@ public class LodieUtils {
      * is expected to be numeric.  If the feature is not numeric or does not 
      * exist (is null) then the candidate is ignored and guaranteed not to be
      * included in the result.
+     * Candidates with the same value are kept in the order of the input list.
      * <p>
      * NOTE: this expects all values of the feature to be of one of the types
      * Integer, Long, Double, or Float and it expects all values of the feature
@@ -1015,6 +1167,8 @@ public class LodieUtils {
      * exist (is null) then the parameter includeNull determines how the candidate
      * is processed: if the parameter is true, it will treated as if the feature 
      * had a value less than all other values, otherwise the candidate is ignored.
+     * Candidates with the same value, and the candidates with a null value,
+     * are kept in the order of the input list.
      * <p>
      * NOTE: this expects all values of the feature to be of one of the types
      * Integer, Long, Double, or Float and it expects all values of the feature
@@ -1031,23 +1185,130 @@ public class LodieUtils {
      * @param includeNull: if true, keep candidates where the feature is null
      */
     public static List<FeatureMap> sortCandidatesDescOn(List<FeatureMap> candidates, String featureName, int maxDifferent, boolean includeNull) {
-      // TODO: it would be more efficient to use a bounded priority queue here 
-      // but Java does not have one!
-      PriorityQueue<FeatureMap> queue = new PriorityQueue<FeatureMap>(candidates.size(),makeNumDescFeatureComparator(featureName));
+      if(maxDifferent < 1) {
+        return new ArrayList<FeatureMap>();
+      }
+      if(maxDifferent <= MAX_SELECT_DIFFERENT) {
+        List<FeatureMap> ret = selectCandidatesDescOn(candidates, featureName, maxDifferent, includeNull);
+        if(ret != null) {
+          return ret;
+        }
+      }
+      return sortAllCandidatesDescOn(candidates, featureName, maxDifferent, includeNull);
+    }
+    
+    /**
+     * Up to this number of different values, sortCandidatesDescOn selects the
+     * best candidates with a linear scan instead of sorting all of them.
+     */
+    public static final int MAX_SELECT_DIFFERENT = 8;
+    
+    // The top-k selection path of sortCandidatesDescOn: extracts the feature values
+    // once as doubles and finds the maxDifferent best distinct values with a 
+    // linear scan over a small sorted array, then collects the candidates for
+    // each of these values in the original order, followed by the candidates
+    // with a null value if those are included and there is still room for one
+    // more different value. 
+    // Returns null if the values cannot be handled here (mixed or unsupported
+    // Number types, or long values which do not fit exactly into a double),
+    // so that the full sort can produce the same result or exception as before.
+    private static List<FeatureMap> selectCandidatesDescOn(List<FeatureMap> candidates, String featureName, int maxDifferent, boolean includeNull) {
+      int n = candidates.size();
+      FeatureMap[] fms = new FeatureMap[n];
+      double[] values = new double[n];
+      // 0: skip, 1: has a value, 2: null value
+      byte[] kind = new byte[n];
+      Class<?> numClass = null;
+      boolean haveNull = false;
+      int i = 0;
+      for(FeatureMap fm : candidates) {
+        fms[i] = fm;
+        Object f = fm.get(featureName);
+        if(f == null) {
+          if(includeNull) {
+            kind[i] = 2;
+            haveNull = true;
+          }
+        } else if(f instanceof Number) {
+          if(numClass == null) {
+            numClass = f.getClass();
+            if(numClass != Integer.class && numClass != Long.class && 
+               numClass != Float.class && numClass != Double.class) {
+              return null;
+            }
+          } else if(f.getClass() != numClass) {
+            return null;
+          }
+          if(f instanceof Long) {
+            long l = (Long)f;
+            if(l > MAX_EXACT_LONG || l < -MAX_EXACT_LONG) {
+              return null;
+            }
+          }
+          values[i] = ((Number)f).doubleValue();
+          kind[i] = 1;
+        }
+        i++;
+      }
+      // the best distinct values in descending order, compared the same way
+      // as Integer/Long/Float/Double.compareTo would compare them
+      double[] best = new double[maxDifferent];
+      int nbest = 0;
+      for(i=0; i<n; i++) {
+        if(kind[i] != 1) { continue; }
+        double v = values[i];
+        int pos = nbest;
+        while(pos > 0 && Double.compare(v, best[pos-1]) > 0) {
+          pos--;
+        }
+        if((pos > 0 && Double.compare(v, best[pos-1]) == 0) || pos >= maxDifferent) {
+          continue;
+        }
+        int last = (nbest < maxDifferent) ? nbest : maxDifferent-1;
+        System.arraycopy(best, pos, best, pos+1, last-pos);
+        best[pos] = v;
+        if(nbest < maxDifferent) { nbest++; }
+      }
+      List<FeatureMap> ret = new ArrayList<FeatureMap>();
+      for(int b=0; b<nbest; b++) {
+        for(i=0; i<n; i++) {
+          if(kind[i] == 1 && Double.compare(values[i], best[b]) == 0) {
+            ret.add(fms[i]);
+          }
+        }
+      }
+      if(haveNull && nbest < maxDifferent) {
+        for(i=0; i<n; i++) {
+          if(kind[i] == 2) {
+            ret.add(fms[i]);
+          }
+        }
+      }
+      return ret;
+    }
+    
+    private static final long MAX_EXACT_LONG = 1L << 53;
+    
+    // The full sort path of sortCandidatesDescOn. The sort is stable, so 
+    // candidates with the same value stay in input order, as in the 
+    // selection path.
+    private static List<FeatureMap> sortAllCandidatesDescOn(List<FeatureMap> candidates, String featureName, int maxDifferent, boolean includeNull) {
+      List<FeatureMap> sorted = new ArrayList<FeatureMap>(candidates.size());
       for(FeatureMap fm : candidates) {
         Object f = fm.get(featureName);
         if(!includeNull && f == null) {
           continue;
         }
         if(f == null || f instanceof Number) {
-          queue.add(fm);
+          sorted.add(fm);
         }
       }
-      List<FeatureMap> ret = new LinkedList<FeatureMap>();
-      FeatureMap el = null;
+      Collections.sort(sorted, makeNumDescFeatureComparator(featureName));
+      List<FeatureMap> ret = new ArrayList<FeatureMap>();
       int ndiff = 0;
       Object lastValue = new Object();
-      while(ndiff <= maxDifferent && (el=queue.poll()) != null) {
+      for(Iterator<FeatureMap> it = sorted.iterator(); ndiff <= maxDifferent && it.hasNext(); ) {
+        FeatureMap el = it.next();
         Object thisValue = el.get(featureName);
           if((thisValue == null && lastValue != null) || 
              (thisValue != null && !thisValue.equals(lastValue))
@@ -1113,11 +1374,126 @@ public class LodieUtils {
     	}
     }
     
+    /**
+     * Add the rank feature for one score feature to all candidates of a list annotation.
+     * 
+     * This is the same as calling addRankFeatures with just one feature.
+     * 
+     * @param featureToRank
+     * @param lookuplist
+     * @param annotationSet
+     * @param includeAbsoluteRankFeature 
+     */
     public static void addRankFeature(String featureToRank, Annotation lookuplist,
     		AnnotationSet annotationSet, boolean includeAbsoluteRankFeature){
-    	AnnotationSet lus = getCandidateAnns(annotationSet, lookuplist);
-
-    	Iterator<Annotation> it = lus.iterator();
+      addRankFeatures(lookuplist, annotationSet, includeAbsoluteRankFeature, featureToRank);
+    }
+    
+    /**
+     * Add the rank features for several score features to all candidates of a list annotation.
+     * 
+     * For each feature "scXxx" this adds the feature "rnXxxRank" which is 
+     * (n-i)/n for a candidate at position i when all n candidates are sorted 
+     * by decreasing value of the feature, and, if includeAbsoluteRankFeature is
+     * true, the feature "rnXxxAbsoluteRank" which is i+1. Candidates with
+     * equal values get the ranks of the first candidate with that value, 
+     * candidates with a value of 0 (or no value) get ranks of 0.
+     * <p>
+     * The values of each feature are extracted once into a primitive array and
+     * sorted once, so the whole list is processed in O(k*n*log(n)) for k features.
+     * 
+     * @param lookuplist
+     * @param annotationSet
+     * @param includeAbsoluteRankFeature
+     * @param featuresToRank 
+     */
+    public static void addRankFeatures(Annotation lookuplist, AnnotationSet annotationSet, 
+            boolean includeAbsoluteRankFeature, String... featuresToRank) {
+      CandidateList cands = getCandidates(annotationSet, lookuplist);
+      int n = cands.size();
+      FeatureMap[] fms = new FeatureMap[n];
+      for(int i=0; i<n; i++) {
+        fms[i] = cands.getFeatures(i);
+      }
+      float[] values = new float[n];
+      float[] sorted = new float[n];
+      float[] rankAt = new float[n];
+      int[] absoluteRankAt = new int[n];
+      for(String featureToRank : featuresToRank) {
+        boolean hasNaN = false;
+        for(int i=0; i<n; i++) {
+          Object val = fms[i].get(featureToRank);
+          values[i] = (val == null) ? 0.0F : everythingToFloat(val);
+          if(Float.isNaN(values[i])) {
+            hasNaN = true;
+          }
+        }
+        if(hasNaN) {
+          // NaN does not have a proper place in the sort order, so the result
+          // depends on the order of insertion, let the original method handle this
+          addRankFeatureByInsertion(featureToRank, cands, includeAbsoluteRankFeature);
+          continue;
+        }
+        System.arraycopy(values, 0, sorted, 0, n);
+        Arrays.sort(sorted);
+        // compute the ranks for each position of the descending order, 
+        // exactly as it is done when walking the sorted list
+        float prevfeat = -1.0F;
+        float prevrankfeat = -1.0F;
+        int prevAbsoluteRank = -1;
+        for(int i=0; i<n; i++) {
+          float thisfeat = sorted[n-1-i];
+          float rankFeat;
+          int absoluteRank;
+          if(thisfeat==prevfeat){
+            rankFeat = prevrankfeat;
+            absoluteRank = prevAbsoluteRank;
+          } else if(thisfeat==0){
+            rankFeat = 0.0F;
+            absoluteRank = 0;
+          } else {
+            rankFeat = ((float)n-i)/(float)n;
+            absoluteRank = i+1;
+          }
+          rankAt[i] = rankFeat;
+          absoluteRankAt[i] = absoluteRank;
+          prevrankfeat = rankFeat;
+          prevfeat = thisfeat;
+          prevAbsoluteRank = absoluteRank;
+        }
+        String rankFeatureName = "rn" + featureToRank.substring(2);
+        String relName = rankFeatureName + "Rank";
+        String absName = rankFeatureName + "AbsoluteRank";
+        for(int i=0; i<n; i++) {
+          // all candidates with equal values get the rank of the first of them
+          // in descending order, which is at the number of larger values
+          int pos = n - upperBound(sorted, n, values[i]);
+          fms[i].put(relName, rankAt[pos]);
+          if(includeAbsoluteRankFeature) {
+            fms[i].put(absName, absoluteRankAt[pos]);
+          }
+        }
+      }
+    }
+    
+    // index of the first element in the ascending sorted array that is greater than value
+    private static int upperBound(float[] sorted, int n, float value) {
+      int lo = 0;
+      int hi = n;
+      while(lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if(sorted[mid] <= value) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+    
+    private static void addRankFeatureByInsertion(String featureToRank, CandidateList cands,
+            boolean includeAbsoluteRankFeature) {
+    	Iterator<Annotation> it = cands.annotations().iterator();
     	LinkedList<Annotation> lis = new LinkedList<Annotation>();
 
 		 if(it.hasNext()){
@@ -1259,13 +1635,13 @@ public class LodieUtils {
     }
     
     public static int copyListAnn(Annotation listAnn, AnnotationSet fromSet, AnnotationSet toSet) {
-        List<Integer> ids = getIds(listAnn);
-        List<Integer> newIds = new ArrayList<Integer>();
+        CandidateList cands = getCandidates(fromSet, listAnn);
+        List<Integer> newIds = new ArrayList<Integer>(cands.size());
         FeatureMap lfm = Utils.toFeatureMap(listAnn.getFeatures());
         lfm.put(IDS, newIds);
         int newLlId = Utils.addAnn(toSet,listAnn,listAnn.getType(),lfm);
-        for(Integer id : ids) {
-          Annotation ann = fromSet.get(id);
+        for(int i=0; i<cands.size(); i++) {
+          Annotation ann = fromSet.get(cands.getId(i));
           FeatureMap fm = Utils.toFeatureMap(ann.getFeatures());
           // override the list annotation id with the one for the copy
           fm.put(LLID,newLlId);
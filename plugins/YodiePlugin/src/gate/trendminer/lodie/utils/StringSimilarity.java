@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.utils;
+
+/**
+ * The string similarity used for the scStringSimilarity feature.
+ *
+ * The similarity of a label and the string it was matched with is
+ * 1 - d/(length of label + length of string), where d is the Levenshtein
+ * distance. The distance is computed exactly as commons-lang
+ * StringUtils.getLevenshteinDistance does it, but without allocating 
+ * anything once the reusable per-thread rows are large enough, and 
+ * without running the DP at all for equal strings or where the strings only
+ * differ in a single character after removing the common prefix and suffix,
+ * which is the case for most strings that only differ in case.
+ * <p>
+ * The results are not cached: for the short strings of labels, computing 
+ * the distance is cheaper than looking the pair up in a shared cache.
+ */
+public class StringSimilarity {
+
+  // the two rows of the DP, reused by each thread
+  private static final ThreadLocal<int[][]> ROWS = new ThreadLocal<int[][]>() {
+    @Override
+    protected int[][] initialValue() {
+      return new int[][] { new int[64], new int[64] };
+    }
+  };
+
+  private StringSimilarity() {}
+
+  /**
+   * The similarity between the label and the string, as used for scStringSimilarity.
+   *
+   * This is 1.0 - (lev/(string.length() + label.length())).
+   * @param label
+   * @param string
+   * @return
+   */
+  public static double similarity(String label, String string) {
+    double lev = levenshtein(label, string);
+    return 1.0 - (lev/(string.length() + label.length()));
+  }
+
+  /**
+   * The Levenshtein distance between the two strings.
+   *
+   * This gives the same result as commons-lang StringUtils.getLevenshteinDistance.
+   * @param s
+   * @param t
+   * @return
+   */
+  public static int levenshtein(String s, String t) {
+    if(s == null || t == null) {
+      throw new IllegalArgumentException("Strings must not be null");
+    }
+    if(s.equals(t)) {
+      return 0;
+    }
+    // the common prefix and suffix do not change the distance
+    int n = s.length();
+    int m = t.length();
+    int from = 0;
+    while(from < n && from < m && s.charAt(from) == t.charAt(from)) {
+      from++;
+    }
+    while(n > from && m > from && s.charAt(n-1) == t.charAt(m-1)) {
+      n--;
+      m--;
+    }
+    n -= from;
+    m -= from;
+    if(n == 0) {
+      return m;
+    }
+    if(m == 0) {
+      return n;
+    }
+    // a single character is either substituted for one of the other 
+    // characters, or kept if it occurs among them
+    if(n == 1) {
+      return occursIn(s.charAt(from), t, from, from+m) ? m - 1 : m;
+    }
+    if(m == 1) {
+      return occursIn(t.charAt(from), s, from, from+n) ? n - 1 : n;
+    }
+    // make t the shorter string so the rows are as short as possible
+    if(n < m) {
+      String tmp = s;
+      s = t;
+      t = tmp;
+      int tmpLen = n;
+      n = m;
+      m = tmpLen;
+    }
+    int[][] rows = ROWS.get();
+    if(rows[0].length <= m) {
+      rows[0] = new int[m+1];
+      rows[1] = new int[m+1];
+    }
+    int[] prev = rows[0];
+    int[] cur = rows[1];
+    for(int j=0; j<=m; j++) {
+      prev[j] = j;
+    }
+    for(int i=1; i<=n; i++) {
+      char sc = s.charAt(from+i-1);
+      cur[0] = i;
+      for(int j=1; j<=m; j++) {
+        int cost = (t.charAt(from+j-1) == sc) ? 0 : 1;
+        int d = prev[j-1] + cost;
+        if(prev[j] + 1 < d) { d = prev[j] + 1; }
+        if(cur[j-1] + 1 < d) { d = cur[j-1] + 1; }
+        cur[j] = d;
+      }
+      int[] tmp = prev;
+      prev = cur;
+      cur = tmp;
+    }
+    return prev[m];
+  }
+
+  private static boolean occursIn(char c, String str, int from, int to) {
+    for(int i=from; i<to; i++) {
+      if(str.charAt(i) == c) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2026 The University of Sheffield.
+ *
+ * This file is part of YodiePlugin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gate.trendminer.lodie.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces a known prefix of a string, e.g. a base URI by a name space prefix.
+ *
+ * This is compiled once from a map of prefixes to replacements into a
+ * character trie, so finding the prefix of a string only looks at the
+ * characters of the string that are part of some prefix, instead of
+ * checking each prefix with startsWith.
+ * <p>
+ * If several prefixes match a string, the one that comes first in the
+ * iteration order of the map given to the constructor is used, exactly as
+ * if the map entries were checked with startsWith one by one. This is
+ * how the more specific category prefixes take precedence over the resource
+ * prefixes in LodieUtils.base2ns.
+ */
+public class UriPrefixMapper {
+
+  private final Node root = new Node();
+  private final String[] prefixes;
+  private final String[] replacements;
+
+  /**
+   * Compile the mapper from the map, which should have a defined iteration
+   * order (e.g. LinkedHashMap) if some of the prefixes are prefixes of others.
+   * @param prefix2replacement
+   */
+  public UriPrefixMapper(Map<String,String> prefix2replacement) {
+    int n = prefix2replacement.size();
+    prefixes = new String[n];
+    replacements = new String[n];
+    int i = 0;
+    for(Map.Entry<String,String> e : prefix2replacement.entrySet()) {
+      prefixes[i] = e.getKey();
+      replacements[i] = e.getValue();
+      Node node = root;
+      String prefix = e.getKey();
+      for(int c=0; c<prefix.length(); c++) {
+        node = node.childOrCreate(prefix.charAt(c));
+      }
+      // only the first entry for a prefix is ever used
+      if(node.entry < 0) {
+        node.entry = i;
+      }
+      i++;
+    }
+  }
+
+  /**
+   * Return the index of the first matching prefix, in map order, or -1 if none matches.
+   * @param s
+   * @return
+   */
+  public int findPrefix(String s) {
+    int best = root.entry;
+    Node node = root;
+    int len = s.length();
+    for(int c=0; c<len; c++) {
+      node = node.child(s.charAt(c));
+      if(node == null) {
+        break;
+      }
+      if(node.entry >= 0 && (best < 0 || node.entry < best)) {
+        best = node.entry;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Replace the first matching prefix of the string, or return the string unchanged.
+   * @param s
+   * @return
+   */
+  public String map(String s) {
+    int idx = findPrefix(s);
+    if(idx < 0) {
+      return s;
+    }
+    return replacements[idx] + s.substring(prefixes[idx].length());
+  }
+
+  /**
+   * Map all the strings in the array and return a new array with the results.
+   * @param strings
+   * @return
+   */
+  public String[] mapAll(String... strings) {
+    String[] ret = new String[strings.length];
+    for(int i=0; i<strings.length; i++) {
+      ret[i] = map(strings[i]);
+    }
+    return ret;
+  }
+
+  /**
+   * Map all the strings in the list and return a new list with the results.
+   * @param strings
+   * @return
+   */
+  public List<String> mapAll(List<String> strings) {
+    List<String> ret = new ArrayList<String>(strings.size());
+    for(String s : strings) {
+      ret.add(map(s));
+    }
+    return ret;
+  }
+
+  private static final class Node {
+    // index of the map entry for the prefix ending here, or -1
+    int entry = -1;
+    char[] chars = new char[0];
+    Node[] children = new Node[0];
+
+    Node child(char c) {
+      char[] cs = chars;
+      for(int i=0; i<cs.length; i++) {
+        if(cs[i] == c) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    Node childOrCreate(char c) {
+      Node node = child(c);
+      if(node == null) {
+        node = new Node();
+        chars = Arrays.copyOf(chars, chars.length+1);
+        chars[chars.length-1] = c;
+        children = Arrays.copyOf(children, children.length+1);
+        children[children.length-1] = node;
+      }
+      return node;
+    }
+  }
+}
@@ -3,20 +3,27 @@ Gate.init()
 import gate.trendminer.lodie.utils._
 var cands = new java.util.ArrayList[FeatureMap]()
 
-cands.add(gate.Utils.featureMap("v",12.asInstanceOf[Integer])) 
-cands.add(gate.Utils.featureMap("v",null))
-cands.add(gate.Utils.featureMap("v",1.asInstanceOf[Integer]))
-cands.add(gate.Utils.featureMap("v",null))
-cands.add(gate.Utils.featureMap("v",12.asInstanceOf[Integer]))
-cands.add(gate.Utils.featureMap("v",12.asInstanceOf[Integer]))
-cands.add(gate.Utils.featureMap("v",14.asInstanceOf[Integer]))
-cands.add(gate.Utils.featureMap("v",1.asInstanceOf[Integer]))
-cands.add(gate.Utils.featureMap("v",null))
-cands.add(gate.Utils.featureMap("v","ss"))
-cands.add(gate.Utils.featureMap("v","123"))
-cands.add(gate.Utils.featureMap("v",2.asInstanceOf[Integer]))
-cands.add(gate.Utils.featureMap("v",null))
+cands.add(gate.Utils.featureMap("v",12.asInstanceOf[Integer],"i",0.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v",null,"i",1.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v",1.asInstanceOf[Integer],"i",2.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v",null,"i",3.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v",12.asInstanceOf[Integer],"i",4.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v",12.asInstanceOf[Integer],"i",5.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v",14.asInstanceOf[Integer],"i",6.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v",1.asInstanceOf[Integer],"i",7.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v",null,"i",8.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v","ss","i",9.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v","123","i",10.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v",2.asInstanceOf[Integer],"i",11.asInstanceOf[Integer]))
+cands.add(gate.Utils.featureMap("v",null,"i",12.asInstanceOf[Integer]))
 
+// candidates with the same value stay in input order, the "i" feature is the
+// position in the input, so for any k the result must start like the one for 999:
+// For  1: [{v=14, i=6}]
+// For  2: [{v=14, i=6}, {v=12, i=0}, {v=12, i=4}, {v=12, i=5}]
+// For  3: ... followed by {v=2, i=11}
+// For  4: ... followed by {v=1, i=2}, {v=1, i=7}
+// For 999: the same as for 4
 println("For  1: "+LodieUtils.sortCandidatesDescOn(cands,"v",1))
 println("For  2: "+LodieUtils.sortCandidatesDescOn(cands,"v",2))
 println("For  3: "+LodieUtils.sortCandidatesDescOn(cands,"v",3))
@@ -0,0 +1,51 @@
+import gate._
+Gate.init()
+import gate.trendminer.lodie.pr.GazetteerPostFilterPR
+
+// GazetteerPostFilterPR with a stopword list: a stopword cannot span a
+// Split, and a longer stopword does not hide a shorter one across a Split
+var list = java.io.File.createTempFile("stopwords",".lst")
+list.deleteOnExit()
+var out = new java.io.PrintWriter(list,"UTF-8")
+out.println("of")
+out.println("of the")
+out.close()
+
+var pr = new GazetteerPostFilterPR()
+pr.setStopwordListURL(list.toURI().toURL())
+pr.setSplitAnnotationType("Split")
+pr.setInputASName("Gazetteer")
+pr.setOutputASName("removed")
+pr.setDateAddressASName("")
+pr.setDateAddressLookupASName("GazetteerEN")
+pr.setDateAddressOutputASName("")
+pr.init()
+
+// Tokens for the words, a Split for the newline, one Lookup from start to end,
+// returns the Lookups which are kept
+def run(text: String, start: Long, end: Long): String = {
+  var doc = Factory.newDocument(text)
+  var m = "\\S+".r
+  for(w <- m.findAllMatchIn(text)) {
+    Utils.addAnn(doc.getAnnotations(),w.start.toLong,w.end.toLong,"Token",Factory.newFeatureMap())
+  }
+  var nl = text.indexOf('\n')
+  if(nl >= 0) {
+    Utils.addAnn(doc.getAnnotations(),nl.toLong,(nl+1).toLong,"Split",Factory.newFeatureMap())
+  }
+  Utils.addAnn(doc.getAnnotations("Gazetteer"),start,end,"Lookup",Factory.newFeatureMap())
+  pr.setDocument(doc)
+  pr.execute()
+  var kept = ""
+  var it = Utils.inDocumentOrder(doc.getAnnotations("Gazetteer").get("Lookup")).iterator()
+  while(it.hasNext()) {
+    kept += "["+Utils.stringFor(doc,it.next()).replace('\n',' ')+"]"
+  }
+  Factory.deleteResource(doc)
+  kept
+}
+
+println("of, longer stopword follows, expected [of]: "+run("sign of the end",5,7))
+println("of, Split before the, expected nothing: "+run("sign of\nthe end",5,7))
+println("of the, expected nothing: "+run("sign of the end",5,11))
+println("of the across a Split, expected [of the]: "+run("sign of\nthe end",5,11))